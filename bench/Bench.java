@@ -0,0 +1,177 @@
+/**
+ * Small benchmark harness shared by the benchmarks in this folder. Works like a stripped down JMH run in
+ * average-time mode: each benchmark gets untimed warmup iterations so the JIT settles, then timed iterations,
+ * and reports the mean time per operation (with its 99.9% error), the bytes allocated per operation
+ * on the benchmark thread and the allocation rate that works out to. Kept free of outside libraries so it
+ * builds with nothing but the JDK
+ * @author Robin A. and Zach D.
+ */
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.Locale;
+
+public class Bench {
+
+	private static final com.sun.management.ThreadMXBean THREADS = threadBean();
+	private static final long ITERATION_NANOS = 500_000_000L;
+
+	/**
+	 * Sink for benchmark results so the JIT can't throw away the work being measured
+	 */
+	static volatile long sink;
+
+	private final int warmups;
+	private final int iterations;
+
+	/**
+	 * Operation being measured; returns something derived from its work so it can be consumed
+	 */
+	public interface Op {
+		public long run();
+	}
+
+	/**
+	 * Constructor
+	 * @param warmups - untimed iterations before measuring
+	 * @param iterations - timed iterations
+	 */
+	public Bench(int warmups, int iterations) {
+		this.warmups = warmups;
+		this.iterations = iterations;
+	}
+
+	/**
+	 * Prints the header for the result table
+	 */
+	public static void header() {
+		System.out.println(String.format(Locale.ROOT, "%-48s %6s %14s %12s %14s %10s  %s",
+				"Benchmark", "Cnt", "Score", "Error", "Alloc", "MB/s", "Units"));
+	}
+
+	/**
+	 * Runs and prints one benchmark; every iteration repeats the operation for about half a second
+	 * @param name - name to print
+	 * @param unit - what one operation is (frame, ray, column...)
+	 * @param op - operation to measure
+	 */
+	public void run(String name, String unit, Op op) {
+		long batch = calibrate(op);
+		for (int i = 0; i < warmups; i++) {
+			measure(op, batch);
+		}
+		double[] nanos = new double[iterations];
+		long allocated = 0;
+		for (int i = 0; i < iterations; i++) {
+			long before = allocatedBytes();
+			nanos[i] = measure(op, batch) / (double)batch;
+			allocated += allocatedBytes() - before;
+		}
+		double mean = 0;
+		for (double n: nanos) {
+			mean += n;
+		}
+		mean /= iterations;
+		double variance = 0;
+		for (double n: nanos) {
+			variance += (n - mean) * (n - mean);
+		}
+		double error = (iterations > 1) ? 3.29 * Math.sqrt(variance / (iterations - 1)) / Math.sqrt(iterations) : 0;
+		double bytesPerOp = (THREADS == null) ? Double.NaN : allocated / (double)(batch * iterations);
+		System.out.println(String.format(Locale.ROOT, "%-48s %6d %14.1f %12.1f %14.1f %10.1f  ns/%s, B/%s",
+				name, iterations, mean, error, bytesPerOp, (bytesPerOp * 1000) / mean, unit, unit));
+	}
+
+	/**
+	 * Runs the operation once and prints the highest heap usage seen while it ran, above what was in use
+	 * before it started
+	 * @param name - name to print
+	 * @param op - operation to measure
+	 */
+	public static void peakHeap(String name, Op op) {
+		System.gc();
+		long before = 0;
+		for (MemoryPoolMXBean pool: ManagementFactory.getMemoryPoolMXBeans()) {
+			if (pool.getType() == MemoryType.HEAP) {
+				before += pool.getUsage().getUsed();
+				pool.resetPeakUsage();
+			}
+		}
+		sink = op.run();
+		long peak = 0;
+		for (MemoryPoolMXBean pool: ManagementFactory.getMemoryPoolMXBeans()) {
+			if (pool.getType() == MemoryType.HEAP) {
+				peak += pool.getPeakUsage().getUsed();
+			}
+		}
+		System.out.println(String.format(Locale.ROOT, "%-48s %6d %14.1f %12s %14s %10s  MB peak heap",
+				name, 1, (peak - before) / (1024.0 * 1024.0), "", "", ""));
+	}
+
+	/**
+	 * Prints a row for a benchmark that couldn't run, such as one that ran out of stack or heap
+	 * @param name - name to print
+	 * @param failure - what went wrong
+	 */
+	public static void failed(String name, Throwable failure) {
+		System.out.println(String.format(Locale.ROOT, "%-48s  failed: %s", name, failure));
+	}
+
+	/**
+	 * Finds how many operations fit in one iteration
+	 * @param op - operation to measure
+	 * @return - operations per iteration
+	 */
+	private long calibrate(Op op) {
+		long batch = 1;
+		while (true) {
+			long time = measure(op, batch);
+			if (time > ITERATION_NANOS / 4 || batch >= (1L << 40)) {
+				return Math.max(1, (batch * ITERATION_NANOS) / Math.max(time, 1));
+			}
+			batch *= 2;
+		}
+	}
+
+	/**
+	 * Runs the operation a number of times in a row
+	 * @param op - operation to measure
+	 * @param count - times to run it
+	 * @return - nanoseconds taken
+	 */
+	private long measure(Op op, long count) {
+		long result = 0;
+		long start = System.nanoTime();
+		for (long i = 0; i < count; i++) {
+			result += op.run();
+		}
+		long time = System.nanoTime() - start;
+		sink = result;
+		return time;
+	}
+
+	/**
+	 * @return - bytes allocated so far by the current thread, or 0 if the JVM can't tell
+	 */
+	static long allocatedBytes() {
+		if (THREADS == null) {
+			return 0;
+		}
+		return THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	/**
+	 * @return - the JVM's thread bean if it supports counting allocations, else null
+	 */
+	private static com.sun.management.ThreadMXBean threadBean() {
+		java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (bean instanceof com.sun.management.ThreadMXBean) {
+			com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean)bean;
+			if (threads.isThreadAllocatedMemorySupported()) {
+				threads.setThreadAllocatedMemoryEnabled(true);
+				return threads;
+			}
+		}
+		return null;
+	}
+}
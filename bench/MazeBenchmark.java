@@ -0,0 +1,119 @@
+/**
+ * Benchmarks for Maze generation and Maze.shortestPath from small Title screen sized mazes up to 2000x2000.
+ * Every maze comes from the same fixed seed so runs can be compared; each size reports time and allocation
+ * for generation, setPoints and shortestPath (on the junction graph, once it's built), plus the peak heap a
+ * single generation and solve need, then compares every PathSolver on the same start and goal (with the nodes
+ * each one expanded), times building the JunctionGraph, querying it and fixing it after a wall is knocked out
+ * and put back, and times the HierarchicalSolver's first (cluster building) and cached solves. Sizes that
+ * can't be generated (out of stack or heap) are reported as failed instead of stopping the run.
+ * Run with: javac -d out src/*.java bench/*.java && java -cp out MazeBenchmark [largest size]
+ * @author Robin A. and Zach D.
+ */
+
+public class MazeBenchmark {
+
+	private static final long SEED = 2017;
+	private static final int[] SIZES = {10, 17, 50, 100, 250, 500, 1000, 2000};
+	private static final PathSolver[] SOLVERS = {new BfsSolver(), new AStarSolver(), new BidirectionalBfsSolver(), 
+			new JumpPointSolver()};
+
+	public static void main(String[] args) {
+		int largest = (args.length > 0) ? Integer.parseInt(args[0]) : SIZES[SIZES.length-1];
+		Bench small = new Bench(3, 5);
+		Bench large = new Bench(1, 3);
+		Bench.header();
+		for (final int size: SIZES) {
+			if (size > largest) {
+				break;
+			}
+			Bench bench = (size >= 500) ? large : small;
+			String name = size + "x" + size;
+			final Maze maze;
+			try {
+				maze = new Maze(size, size, SEED);
+				bench.run("new Maze " + name, "maze", new Bench.Op() {
+					public long run() {
+						return new Maze(size, size, SEED).getGoal().x;
+					}
+				});
+				Bench.peakHeap("new Maze " + name, new Bench.Op() {
+					public long run() {
+						return new Maze(size, size, SEED).getGoal().x;
+					}
+				});
+			} catch (StackOverflowError | OutOfMemoryError e) {
+				Bench.failed("new Maze " + name, e);
+				continue;
+			}
+			bench.run("setPoints " + name, "call", new Bench.Op() {
+				public long run() {
+					maze.setPoints();
+					return maze.getGoal().x;
+				}
+			});
+			try {
+				bench.run("shortestPath " + name, "solve", new Bench.Op() {
+					public long run() {
+						return maze.shortestPath().size();
+					}
+				});
+				Bench.peakHeap("shortestPath " + name, new Bench.Op() {
+					public long run() {
+						return maze.shortestPath().size();
+					}
+				});
+			} catch (OutOfMemoryError e) {
+				Bench.failed("shortestPath " + name, e);
+			}
+			for (final PathSolver solver: SOLVERS) {
+				String solverName = solver.getClass().getSimpleName() + " " + name + " expanded=" 
+						+ maze.solve(solver).getExpanded();
+				bench.run(solverName, "solve", new Bench.Op() {
+					public long run() {
+						return maze.solve(solver).length();
+					}
+				});
+			}
+			bench.run("new JunctionGraph " + name, "graph", new Bench.Op() {
+				public long run() {
+					return new JunctionGraph(maze.getMap()).getNodeCount();
+				}
+			});
+			final JunctionGraph graph = maze.getJunctionGraph();
+			bench.run("JunctionGraph " + name + " nodes=" + graph.getNodeCount() + " expanded=" 
+					+ maze.solve(graph).getExpanded(), "solve", new Bench.Op() {
+				public long run() {
+					return maze.solve(graph).length();
+				}
+			});
+			bench.run("new HierarchicalSolver+solve " + name, "solve", new Bench.Op() {
+				public long run() {
+					return maze.solve(new HierarchicalSolver(maze.getMap())).length();
+				}
+			});
+			final HierarchicalSolver hierarchy = maze.getHierarchicalSolver();
+			bench.run("HierarchicalSolver " + name + " expanded=" + maze.solve(hierarchy).getExpanded(), "solve", 
+					new Bench.Op() {
+				public long run() {
+					return maze.solve(hierarchy).length();
+				}
+			});
+			final Grid map = maze.getMap();
+			final int start = map.cell(maze.getStart().x, maze.getStart().y);
+			final int goal = map.cell(maze.getGoal().x, maze.getGoal().y);
+			bench.run("JunctionGraph.distance " + name, "query", new Bench.Op() {
+				public long run() {
+					return graph.distance(start, goal);
+				}
+			});
+			final int wallX = 2, wallY = 1;
+			bench.run("Maze.setWall open+close " + name, "update", new Bench.Op() {
+				public long run() {
+					maze.setWall(wallX, wallY, !map.isWall(wallX, wallY));
+					maze.setWall(wallX, wallY, !map.isWall(wallX, wallY));
+					return graph.getNodeCount();
+				}
+			});
+		}
+	}
+}
@@ -0,0 +1,123 @@
+/**
+ * Benchmarks for the raycasting hot path. Frames are rendered headlessly into the Camera's offscreen image
+ * for fixed seeded mazes (the easy and hard sizes from the Title screen, plus much larger ones) and a fixed
+ * set of camera poses, so runs can be compared against each other. Allocation is counted on the benchmark
+ * thread only, so parallel frames don't include what the render pool allocates.
+ * Run with: javac -d out src/*.java bench/*.java && java -cp out RenderBenchmark [threads]
+ * @author Robin A. and Zach D.
+ */
+import java.awt.Graphics;
+import java.awt.Point;
+
+public class RenderBenchmark {
+
+	private static final long SEED = 2017;
+	private static final int WIDTH = 1024;
+	private static final int HEIGHT = 768;
+	private static final int[] SIZES = {10, 17, 64, 256};
+	private static final double[] HEADINGS = {0, 45, 90, 135, 180, 225, 270, 315};
+
+	public static void main(String[] args) {
+		System.setProperty("java.awt.headless", "true");
+		int threads = (args.length > 0) ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+		Bench bench = new Bench(3, 5);
+		Bench.header();
+		for (int size: SIZES) {
+			Maze maze = new Maze(size, size, SEED);
+			final Camera camera = new Camera(null, WIDTH, HEIGHT);
+			Point start = maze.getStart();
+			final Player player = new Player(start.x*32 + 16, start.y*32 + 16, 0, maze.getMap(), null, camera);
+			camera.setMap(maze.getMap(), new Portal(maze.getGoal(), null, player));
+			final Graphics g = camera.getImage().getGraphics();
+			final RayHit hit = new RayHit();
+			final int[] pose = new int[1];
+			String name = size + "x" + size;
+
+			Bench.Op ray = new Bench.Op() {
+				public long run() {
+					double heading = HEADINGS[pose[0]++ & 7];
+					return (long)camera.rayCast(player.x, player.y, Math.toRadians(heading), hit);
+				}
+			};
+			bench.run("rayCast " + name, "ray", ray);
+			camera.setRayEngine(new DistanceFieldRayEngine());
+			bench.run("rayCast " + name + " field", "ray", ray);
+			camera.setRayEngine(new GridRayEngine());
+			camera.draw3D(g, player);
+			bench.run("drawWall " + name, "column", new Bench.Op() {
+				public long run() {
+					int column = pose[0]++ % WIDTH;
+					camera.drawWall(column);
+					return column;
+				}
+			});
+			// headings 135 degrees apart, so no frame can reuse the columns of the one before
+			Bench.Op frame = new Bench.Op() {
+				public long run() {
+					player.direction = HEADINGS[(pose[0] += 3) & 7];
+					camera.draw3D(g, player);
+					return camera.getImage().getRGB(WIDTH/2, HEIGHT/2);
+				}
+			};
+			Bench.Op turn = new Bench.Op() {
+				public long run() {
+					player.turnLeft();
+					camera.draw3D(g, player);
+					return camera.getImage().getRGB(WIDTH/2, HEIGHT/2);
+				}
+			};
+			camera.setRenderThreads(1);
+			bench.run("draw3D " + name + " threads=1", "frame", frame);
+			bench.run("draw3D " + name + " turning", "frame", turn);
+			if (threads > 1) {
+				camera.setRenderThreads(threads);
+				bench.run("draw3D " + name + " threads=" + threads, "frame", frame);
+			}
+			camera.setRenderThreads(1);
+			camera.setRenderScale(.5);
+			bench.run("draw3D " + name + " scale=0.5", "frame", frame);
+			camera.setRenderScale(1);
+			camera.setRayStep(8, 8);
+			bench.run("draw3D " + name + " step=8", "frame", frame);
+			camera.setRayStep(1, 8);
+		}
+		for (int size: SIZES) {
+			Maze maze = openMaze(size);
+			final Camera camera = new Camera(null, WIDTH, HEIGHT);
+			Point start = maze.getStart();
+			final Player player = new Player(start.x*32 + 16, start.y*32 + 16, 0, maze.getMap(), null, camera);
+			camera.setMap(maze.getMap(), new Portal(maze.getGoal(), null, player));
+			final RayHit hit = new RayHit();
+			final int[] pose = new int[1];
+			Bench.Op ray = new Bench.Op() {
+				public long run() {
+					double heading = HEADINGS[pose[0]++ & 7];
+					return (long)camera.rayCast(player.x, player.y, Math.toRadians(heading), hit);
+				}
+			};
+			String name = size + "x" + size + " open";
+			bench.run("rayCast " + name, "ray", ray);
+			camera.setRayEngine(new DistanceFieldRayEngine());
+			bench.run("rayCast " + name + " field", "ray", ray);
+		}
+	}
+
+	/**
+	 * Makes a seeded maze with most of its inner walls knocked out, leaving a pillar every 32 cells, like a big
+	 * open room
+	 * @param size - size of maze, as given to the Maze
+	 * @return - the opened up maze
+	 */
+	private static Maze openMaze(int size) {
+		Maze maze = new Maze(size, size, SEED);
+		Grid map = maze.getMap();
+		for (int x = 1; x < map.getWidth() - 1; x++) {
+			for (int y = 1; y < map.getHeight() - 1; y++) {
+				if (map.isWall(x, y) && (x % 32 != 0 || y % 32 != 0)) {
+					maze.setWall(x, y, false);
+				}
+			}
+		}
+		return maze;
+	}
+}
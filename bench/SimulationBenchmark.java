@@ -0,0 +1,65 @@
+/**
+ * Benchmarks for the headless BotSimulation. Bots are dropped on random open cells of fixed seeded mazes and
+ * every operation is one tick of all of them, so bot ticks per second is the bot count divided by the score.
+ * Bots that reach the goal stop costing anything, so each size also prints how many were done by the end.
+ * Each size runs on the benchmark thread alone, then across the given number of threads, each with a new
+ * simulation started from the same spots so both rows tick the same bots.
+ * Run with: javac -d out src/*.java bench/*.java && java -cp out SimulationBenchmark [threads]
+ * @author Robin A. and Zach D.
+ */
+import java.awt.Point;
+import java.util.Locale;
+import java.util.Random;
+
+public class SimulationBenchmark {
+
+	private static final long SEED = 2017;
+	private static final int[] SIZES = {17, 250, 1000};
+	private static final int[] BOTS = {1000, 100000};
+
+	public static void main(String[] args) {
+		int threads = (args.length > 0) ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+		Bench bench = new Bench(3, 5);
+		Bench.header();
+		for (int size: SIZES) {
+			Maze maze = new Maze(size, size, SEED);
+			for (int bots: BOTS) {
+				int[] counts = (threads > 1) ? new int[] {1, threads} : new int[] {1};
+				for (int count: counts) {
+					final BotSimulation simulation = simulation(maze, bots);
+					simulation.setParallelism(count);
+					String name = "tick " + size + "x" + size + " bots=" + bots + " threads=" + count;
+					bench.run(name, "tick", new Bench.Op() {
+						public long run() {
+							simulation.tick();
+							return simulation.getDone();
+						}
+					});
+					simulation.setParallelism(1);
+					System.out.println(String.format(Locale.ROOT, "%-48s  %d of %d bots done after %d ticks", 
+							name, simulation.getDone(), bots, simulation.getTicks()));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Makes a simulation with bots dropped on seeded random open cells, so every run starts from the same spots
+	 * @param maze - Maze the bots run
+	 * @param bots - number of bots
+	 * @return - the new simulation
+	 */
+	private static BotSimulation simulation(Maze maze, int bots) {
+		Grid map = maze.getMap();
+		BotSimulation simulation = new BotSimulation(maze, bots);
+		Random random = new Random(SEED);
+		for (int i = 0; i < bots; i++) {
+			Point start;
+			do {
+				start = new Point(random.nextInt(map.getWidth()), random.nextInt(map.getHeight()));
+			} while (map.isWall(start.x, start.y));
+			simulation.addBot(start);
+		}
+		return simulation;
+	}
+}
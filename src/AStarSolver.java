@@ -0,0 +1,53 @@
+/**
+ * A* PathSolver using the Manhattan distance to the goal as its heuristic, which never overestimates on a grid
+ * without diagonal moves, so the route it finds is still a shortest one
+ * @author Robin A. and Zach D.
+ */
+
+public class AStarSolver extends GridSolver {
+
+	private final LongHeap open = new LongHeap();
+	private int[] cost;
+
+	/* Sizes the cost array alongside the shared ones
+	 * (non-Javadoc)
+	 * @see GridSolver#resize(int)
+	 */
+	@Override
+	protected void resize(int cells) {
+		cost = new int[cells];
+	}
+
+	/* Always expands the open cell with the lowest cost so far plus estimate to the goal
+	 * (non-Javadoc)
+	 * @see GridSolver#search(int, int)
+	 */
+	@Override
+	protected int[] search(int start, int goal) {
+		open.clear();
+		visit(start, start);
+		cost[start] = 0;
+		open.push(LongHeap.entry(manhattan(start, goal), start));
+		while (!open.isEmpty()) {
+			long entry = open.pop();
+			int current = LongHeap.node(entry);
+			if (LongHeap.priority(entry) > cost[current] + manhattan(current, goal)) {
+				continue;
+			}
+			expanded++;
+			if (current == goal) {
+				return trace(start, goal);
+			}
+			int nextCost = cost[current] + 1;
+			for (int step: steps) {
+				int next = current + step;
+				if (!map.isWall(next) && (!seen(next) || nextCost < cost[next])) {
+					visit(next, current);
+					cost[next] = nextCost;
+					open.push(LongHeap.entry(nextCost + manhattan(next, goal), next));
+				}
+			}
+		}
+		return new int[0];
+	}
+}
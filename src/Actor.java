@@ -15,7 +15,7 @@ public abstract class Actor implements GameObject, KeyListener {
 	double rotSpeed = 2;
 	Point pos;
 	
-	/* Return to menu and toggle 2D map
+	/* Return to menu, toggle 2D map and zoom it, toggle fast-forward and the frame metrics overlay
 	 * (non-Javadoc)
 	 * @see GameObject#update()
 	 */
@@ -30,6 +30,24 @@ public abstract class Actor implements GameObject, KeyListener {
 			engine.setShowMap(!engine.isShowMap());
 			keys[KeyEvent.VK_M] = false;
 		}
+		if (keys[KeyEvent.VK_F3]) {
+			engine.raycast.toggleMetrics();
+			keys[KeyEvent.VK_F3] = false;
+		}
+		if (keys[KeyEvent.VK_F]) {
+			engine.setFastForward(!engine.isFastForward());
+			keys[KeyEvent.VK_F] = false;
+		}
+		if (engine.isShowMap() && (keys[KeyEvent.VK_EQUALS] || keys[KeyEvent.VK_ADD])) {
+			engine.raycast.zoomMap(true);
+			keys[KeyEvent.VK_EQUALS] = false;
+			keys[KeyEvent.VK_ADD] = false;
+		}
+		if (engine.isShowMap() && (keys[KeyEvent.VK_MINUS] || keys[KeyEvent.VK_SUBTRACT])) {
+			engine.raycast.zoomMap(false);
+			keys[KeyEvent.VK_MINUS] = false;
+			keys[KeyEvent.VK_SUBTRACT] = false;
+		}
 	}
 	
 	/**
@@ -74,11 +92,15 @@ public abstract class Actor implements GameObject, KeyListener {
 	}
 	
 	/**
+	 * Moves the Actor to a cell; the same Point is reused every time so moving doesn't allocate
 	 * @param x - location of X for Actor
 	 * @param y - location of Y for Actor
 	 */
 	public void setPos(double x, double y) {
-		pos = new Point((int)x, (int)y);
+		if (pos == null) {
+			pos = new Point();
+		}
+		pos.setLocation((int)x, (int)y);
 	}
 	
 	/**
@@ -0,0 +1,47 @@
+/**
+ * Breath-first PathSolver; the queue is a ring buffer of cell numbers that grows when it fills up and is kept
+ * between solves
+ * @author Robin A. and Zach D.
+ */
+
+public class BfsSolver extends GridSolver {
+
+	private int[] queue = new int[1024];
+
+	/* Visits cells in order of distance from the start until the goal comes off the queue
+	 * (non-Javadoc)
+	 * @see GridSolver#search(int, int)
+	 */
+	@Override
+	protected int[] search(int start, int goal) {
+		int mask = queue.length - 1;
+		int head = 0, tail = 0;
+		visit(start, start);
+		queue[tail++] = start;
+		while (head != tail) {
+			int current = queue[head++ & mask];
+			expanded++;
+			if (current == goal) {
+				return trace(start, goal);
+			}
+			for (int step: steps) {
+				int next = current + step;
+				if (!seen(next) && !map.isWall(next)) {
+					visit(next, current);
+					if (tail - head == queue.length) {
+						int[] grown = new int[queue.length * 2];
+						for (int i = head; i != tail; i++) {
+							grown[i - head] = queue[i & mask];
+						}
+						tail -= head;
+						head = 0;
+						queue = grown;
+						mask = queue.length - 1;
+					}
+					queue[tail++ & mask] = next;
+				}
+			}
+		}
+		return new int[0];
+	}
+}
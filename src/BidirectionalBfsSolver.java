@@ -0,0 +1,119 @@
+/**
+ * PathSolver that runs two breath-first searches at once, one out from the start and one back from the goal,
+ * always growing whichever frontier is smaller by one whole level. Once the two meet, the shortest join found
+ * in that level is the route, so together they usually cover far fewer cells than a single search would
+ * @author Robin A. and Zach D.
+ */
+import java.util.Arrays;
+
+public class BidirectionalBfsSolver extends GridSolver {
+
+	private int[] prevBack;
+	private int[] markBack;
+	private int[] dist;
+	private int[] distBack;
+	private int[] front = new int[256], back = new int[256], next = new int[256];
+
+	/* Sizes the second side's arrays alongside the shared ones
+	 * (non-Javadoc)
+	 * @see GridSolver#resize(int)
+	 */
+	@Override
+	protected void resize(int cells) {
+		prevBack = new int[cells];
+		markBack = new int[cells];
+		dist = new int[cells];
+		distBack = new int[cells];
+	}
+
+	/* Grows the smaller frontier a level at a time until the two searches touch
+	 * (non-Javadoc)
+	 * @see GridSolver#search(int, int)
+	 */
+	@Override
+	protected int[] search(int start, int goal) {
+		if (stamp == 1) {
+			Arrays.fill(markBack, 0);
+		}
+		visit(start, start);
+		dist[start] = 0;
+		markBack[goal] = stamp;
+		prevBack[goal] = goal;
+		distBack[goal] = 0;
+		front[0] = start;
+		back[0] = goal;
+		int frontSize = 1, backSize = 1;
+		while (frontSize > 0 && backSize > 0) {
+			boolean forward = frontSize <= backSize;
+			int[] level = forward ? front : back;
+			int size = forward ? frontSize : backSize;
+			int[] ownPrev = forward ? prev : prevBack;
+			int[] ownMark = forward ? mark : markBack;
+			int[] ownDist = forward ? dist : distBack;
+			int[] otherMark = forward ? markBack : mark;
+			int[] otherDist = forward ? distBack : dist;
+			int best = Integer.MAX_VALUE, meetFrom = -1, meetTo = -1;
+			int nextSize = 0;
+			for (int i = 0; i < size; i++) {
+				int current = level[i];
+				expanded++;
+				for (int step: steps) {
+					int cell = current + step;
+					if (map.isWall(cell)) {
+						continue;
+					}
+					if (otherMark[cell] == stamp && ownDist[current] + 1 + otherDist[cell] < best) {
+						best = ownDist[current] + 1 + otherDist[cell];
+						meetFrom = current;
+						meetTo = cell;
+					}
+					if (ownMark[cell] != stamp) {
+						ownMark[cell] = stamp;
+						ownPrev[cell] = current;
+						ownDist[cell] = ownDist[current] + 1;
+						if (nextSize == next.length) {
+							next = Arrays.copyOf(next, nextSize * 2);
+						}
+						next[nextSize++] = cell;
+					}
+				}
+			}
+			if (meetFrom >= 0) {
+				return forward ? join(start, goal, meetFrom, meetTo) : join(start, goal, meetTo, meetFrom);
+			}
+			int[] done = level;
+			if (forward) {
+				front = next;
+				frontSize = nextSize;
+			} else {
+				back = next;
+				backSize = nextSize;
+			}
+			next = done;
+		}
+		return new int[0];
+	}
+
+	/**
+	 * Joins the two halves of the route where the searches met
+	 * @param start - cell the forward search started at
+	 * @param goal - cell the backward search started at
+	 * @param fromStart - cell reached by the forward search
+	 * @param toGoal - neighbouring cell reached by the backward search
+	 * @return - cell numbers from start to goal
+	 */
+	private int[] join(int start, int goal, int fromStart, int toGoal) {
+		int[] first = trace(start, fromStart);
+		int length = first.length;
+		for (int cell = toGoal; cell != goal; cell = prevBack[cell]) {
+			length++;
+		}
+		int[] route = Arrays.copyOf(first, length + 1);
+		int i = first.length;
+		for (int cell = toGoal; cell != goal; cell = prevBack[cell]) {
+			route[i++] = cell;
+		}
+		route[i] = goal;
+		return route;
+	}
+}
@@ -1,15 +1,16 @@
 /**
- * Bot class that auto runs a maze based off of the shortest path available for that maze
+ * Bot class that auto runs a maze based off of the shortest path available for that maze; each next position 
+ * comes from the Maze's goal distance field, so a bot can start (or be knocked) anywhere and still find its way
  * @author Robin A. and Zach D.
  */
 
 import java.awt.Component;
 import java.awt.Point;
-import java.util.Stack;
 
 public class Bot extends Actor {
 	
-	private Stack<Point> route;
+	private static final Compass[] COMPASS = Compass.values();
+	private Maze maze;
 	private Point nextPos;
 	private double nextDir;
 	private int centerMoves;
@@ -17,16 +18,17 @@ public class Bot extends Actor {
 	
 	/**
 	 * Constructor
-	 * @param route - Stack that contains all points bot must visit
+	 * @param maze - Maze the bot runs
+	 * @param start - Point the bot starts from
 	 * @param engine - Game class
 	 * @param t - Component to add Keylistener to
 	 */
-	public Bot(Stack<Point> route, Game engine, Component t) {
+	public Bot(Maze maze, Point start, Game engine, Component t) {
 		this.time = 0;
 		this.centerMoves = 0;
 		this.engine = engine;
-		this.route = route;
-		this.pos = route.pop();
+		this.maze = maze;
+		this.pos = new Point(start);
 		this.x = ((pos.getX()*32) + 16);
 		this.y = ((pos.getY()*32) + 16);
 		this.direction = findFacing();
@@ -86,10 +88,11 @@ public class Bot extends Actor {
 	 * @return - angle to face
 	 */
 	private int findFacing() {
-		Compass[] direction = Compass.values();
-		for (Compass pointing: direction) {
-			Point compPoint = new Point((int)pos.getX()+pointing.mapX, (int)pos.getY()+pointing.mapY);
-			if (compPoint.equals(nextPos)) {
+		if (nextPos == null) {
+			return 0;
+		}
+		for (Compass pointing: COMPASS) {
+			if (pos.x + pointing.mapX == nextPos.x && pos.y + pointing.mapY == nextPos.y) {
 				return pointing.dir;
 			}
 		}
@@ -97,13 +100,9 @@ public class Bot extends Actor {
 	}
 	
 	/**
-	 * Sets next position for bot to check if one available, else sets to null
+	 * Sets next position for bot to check if one available (one step closer to the goal), else sets to null
 	 */
 	private void setNextPos() {
-		if (!route.isEmpty()) {
-			nextPos = route.pop();
-		} else {
-			nextPos = null;
-		}
+		nextPos = maze.nextStep(pos);
 	}
 }
\ No newline at end of file
@@ -0,0 +1,330 @@
+/**
+ * Headless simulation of many bots at once, for stress testing mazes. Instead of one Bot object per bot (each
+ * with its own key array and KeyListener), every bot is a slot in a set of primitive arrays, and each tick
+ * steps all of them with the same rules as Bot.update and Actor.moveForward: turn 2 degrees at a time until
+ * facing the next cell, walk into it, then walk 16 more units to line up with its center. Next cells come from
+ * the Maze's shared goal distance field, and a bot is done once its cell is the goal, same as the Portal checks.
+ * Ticks are split into batches of bots that run across a ForkJoinPool when more than one thread is asked for
+ * @author Robin A. and Zach D.
+ */
+import java.awt.Point;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+public class BotSimulation {
+
+	private static final int TURN_LEFT = 1, TURN_RIGHT = 2, CENTER = 4, DONE = 8;
+	private static final int BATCH = 4096;
+	private static final double[] MOVE_X = new double[360], MOVE_Y = new double[360];
+	private final Maze maze;
+	private final Grid map;
+	private final int height;
+	private final int goal;
+	private final int[] steps = new int[4], facing = new int[4];
+	private double[] x, y;
+	private int[] direction, nextDir, cell, next, finished;
+	private byte[] state, centerMoves;
+	private int count, done, ticks;
+	private int[] distance;
+	private ForkJoinPool pool;
+	private Batch[] batches = new Batch[0];
+	private final RecursiveAction stepAll;
+
+	static {
+		for (int d = 0; d < 360; d++) {
+			MOVE_X[d] = Math.cos(Math.toRadians((double)d + 90));
+			MOVE_Y[d] = Math.sin(Math.toRadians((double)d + 90));
+		}
+	}
+
+	/**
+	 * Constructor
+	 * @param maze - Maze for the bots to run
+	 * @param capacity - number of bots to make room for up front
+	 */
+	public BotSimulation(Maze maze, int capacity) {
+		this.maze = maze;
+		this.map = maze.getMap();
+		this.height = map.getHeight();
+		this.goal = map.cell(maze.getGoal().x, maze.getGoal().y);
+		Compass[] compass = Compass.values();
+		for (int i = 0; i < compass.length; i++) {
+			steps[i] = compass[i].mapX * height + compass[i].mapY;
+			facing[i] = compass[i].dir;
+		}
+		capacity = Math.max(capacity, 1);
+		x = new double[capacity];
+		y = new double[capacity];
+		direction = new int[capacity];
+		nextDir = new int[capacity];
+		cell = new int[capacity];
+		next = new int[capacity];
+		finished = new int[capacity];
+		state = new byte[capacity];
+		centerMoves = new byte[capacity];
+		stepAll = new RecursiveAction() {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected void compute() {
+				for (Batch batch: batches) {
+					batch.reinitialize();
+				}
+				ForkJoinTask.invokeAll(batches);
+			}
+		};
+	}
+
+	/**
+	 * Adds a bot in the middle of a cell. Like a new Bot, it starts facing 0 degrees and turns toward its first
+	 * move on its first ticks
+	 * @param start - open spot to start from
+	 * @return - number of the new bot
+	 */
+	public int addBot(Point start) {
+		if (count == x.length) {
+			int capacity = count * 2;
+			x = Arrays.copyOf(x, capacity);
+			y = Arrays.copyOf(y, capacity);
+			direction = Arrays.copyOf(direction, capacity);
+			nextDir = Arrays.copyOf(nextDir, capacity);
+			cell = Arrays.copyOf(cell, capacity);
+			next = Arrays.copyOf(next, capacity);
+			finished = Arrays.copyOf(finished, capacity);
+			state = Arrays.copyOf(state, capacity);
+			centerMoves = Arrays.copyOf(centerMoves, capacity);
+		}
+		int bot = count++;
+		x[bot] = start.getX()*32 + 16;
+		y[bot] = start.getY()*32 + 16;
+		cell[bot] = map.cell(start.x, start.y);
+		next[bot] = maze.nextCell(cell[bot]);
+		direction[bot] = 0;
+		nextDir[bot] = facing(cell[bot], next[bot]);
+		finished[bot] = -1;
+		if (cell[bot] == goal) {
+			state[bot] = DONE;
+			finished[bot] = ticks;
+			done++;
+		}
+		return bot;
+	}
+
+	/**
+	 * Sets how many threads step the bots; 1 steps them all on the calling thread
+	 * @param threads - number of threads to use
+	 */
+	public void setParallelism(int threads) {
+		if (pool != null) {
+			pool.shutdown();
+			pool = null;
+		}
+		if (threads > 1) {
+			pool = new ForkJoinPool(threads);
+		}
+	}
+
+	/**
+	 * Moves every bot that isn't done yet by one update
+	 */
+	public void tick() {
+		distance = maze.getGoalDistances();
+		if (pool == null || count <= BATCH) {
+			step(0, count);
+		} else {
+			int needed = (count + BATCH - 1) / BATCH;
+			if (batches.length != needed) {
+				batches = new Batch[needed];
+				for (int i = 0; i < needed; i++) {
+					batches[i] = new Batch(i * BATCH);
+				}
+			}
+			stepAll.reinitialize();
+			pool.invoke(stepAll);
+		}
+		ticks++;
+		done = 0;
+		for (int bot = 0; bot < count; bot++) {
+			if ((state[bot] & DONE) != 0) {
+				done++;
+			}
+		}
+	}
+
+	/**
+	 * Ticks until every bot is done or the tick limit runs out
+	 * @param limit - most ticks to run
+	 * @return - number of ticks run
+	 */
+	public int run(int limit) {
+		int start = ticks;
+		while (done < count && ticks - start < limit) {
+			tick();
+		}
+		return ticks - start;
+	}
+
+	/**
+	 * Steps a range of bots by one update
+	 * @param from - first bot
+	 * @param to - bot to stop before
+	 */
+	private void step(int from, int to) {
+		int[] distance = this.distance;
+		for (int bot = from; bot < to; bot++) {
+			int flags = state[bot];
+			if ((flags & DONE) != 0) {
+				continue;
+			}
+			int dir = direction[bot];
+			if (dir != nextDir[bot] && (flags & CENTER) == 0) {
+				if ((dir + 90) % 360 == nextDir[bot] && (flags & (TURN_LEFT | TURN_RIGHT)) == 0) {
+					flags |= TURN_LEFT;
+				} else {
+					flags |= TURN_RIGHT;
+				}
+				dir = ((flags & TURN_LEFT) != 0) ? (dir + 2) % 360 : (dir + 358) % 360;
+				direction[bot] = dir;
+			}
+			if (cell[bot] != next[bot] && dir == nextDir[bot]) {
+				x[bot] -= MOVE_X[dir];
+				y[bot] += MOVE_Y[dir];
+				cell[bot] = ((int)x[bot]/32) * height + (int)y[bot]/32;
+			}
+			if (cell[bot] == next[bot] && (flags & CENTER) == 0) {
+				flags = (flags | CENTER) & ~(TURN_LEFT | TURN_RIGHT);
+				next[bot] = nextCell(distance, cell[bot]);
+				nextDir[bot] = facing(cell[bot], next[bot]);
+			}
+			if ((flags & CENTER) != 0) {
+				if (centerMoves[bot] < 16) {
+					x[bot] -= MOVE_X[dir];
+					y[bot] += MOVE_Y[dir];
+					centerMoves[bot]++;
+				} else {
+					flags &= ~CENTER;
+					centerMoves[bot] = 0;
+				}
+			}
+			if (cell[bot] == goal) {
+				flags |= DONE;
+				finished[bot] = ticks + 1;
+			}
+			state[bot] = (byte)flags;
+		}
+	}
+
+	/**
+	 * Same as Maze.nextCell, but reads the distance field handed to it so threads don't all lock the Maze
+	 * @param distance - goal distance field
+	 * @param from - cell number to move from
+	 * @return - next cell toward the goal, or -1 if there's none
+	 */
+	private int nextCell(int[] distance, int from) {
+		if (distance[from] <= 0) {
+			return -1;
+		}
+		for (int step: steps) {
+			if (distance[from + step] == distance[from] - 1) {
+				return from + step;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Same as Bot.findFacing: the angle that faces a neighbouring cell, or 0 if it isn't a neighbour
+	 * @param from - cell number to face from
+	 * @param to - cell number to face
+	 * @return - angle to face
+	 */
+	private int facing(int from, int to) {
+		for (int i = 0; i < steps.length; i++) {
+			if (from + steps[i] == to) {
+				return facing[i];
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * @return - number of bots
+	 */
+	public int getCount() {
+		return count;
+	}
+
+	/**
+	 * @return - number of bots that have reached the goal
+	 */
+	public int getDone() {
+		return done;
+	}
+
+	/**
+	 * @return - number of ticks run so far
+	 */
+	public int getTicks() {
+		return ticks;
+	}
+
+	/**
+	 * @param bot - number of bot
+	 * @return - tick the bot reached the goal on, or -1 if it hasn't yet
+	 */
+	public int getFinished(int bot) {
+		return finished[bot];
+	}
+
+	/**
+	 * @param bot - number of bot
+	 * @return - X position in world units
+	 */
+	public double getX(int bot) {
+		return x[bot];
+	}
+
+	/**
+	 * @param bot - number of bot
+	 * @return - Y position in world units
+	 */
+	public double getY(int bot) {
+		return y[bot];
+	}
+
+	/**
+	 * @param bot - number of bot
+	 * @return - heading in degrees
+	 */
+	public int getDirection(int bot) {
+		return direction[bot];
+	}
+
+	/**
+	 * Batch of bots stepped by one fork join task
+	 */
+	private class Batch extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+		private final int from;
+
+		/**
+		 * Constructor
+		 * @param from - first bot of the batch
+		 */
+		private Batch(int from) {
+			this.from = from;
+		}
+
+		/* Steps this batch's bots
+		 * (non-Javadoc)
+		 * @see java.util.concurrent.RecursiveAction#compute()
+		 */
+		@Override
+		protected void compute() {
+			step(from, Math.min(from + BATCH, count));
+		}
+	}
+}
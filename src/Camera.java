@@ -7,26 +7,84 @@ import java.awt.Color;
 import java.awt.Font;
 import java.awt.Graphics;
 import java.awt.Point;
+import java.awt.Toolkit;
+import java.awt.image.BufferStrategy;
 import java.awt.image.BufferedImage;
-import java.util.Stack;
+import java.awt.image.DataBufferInt;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
 
 import javax.swing.JPanel;
+import javax.swing.SwingUtilities;
 
 public class Camera extends JPanel {
 
 	private static final long serialVersionUID = 1L;
 	private Portal goal;
 	private BufferedImage image;
+	private Graphics buffG;
+	private int[] pixels;
+	private final int[] imagePixels;
+	private final int[] shades;
+	private final Font hudFont;
+	private String hudText;
+	private int hudTime;
+	private final int[] hudBackup;
 	private Game engine;
-	private int[][] map;
-	private boolean foundGoal;
-	private double goalDist;
+	private Grid map;
+	private MapLayer mapLayer;
+	private int mapZoom;
+	private RayEngine rays;
+	private final RayHit hit;
+	private Actor frameActor;
+	private long frameHeading;
+	private double[] rayOffCos;
+	private double[] raySin, rayCos;
+	private int rayStep;
+	private double rayTolerance;
+	private double[] columnDist;
+	private int[] columnCell;
+	private byte[] columnFace;
+	private int[] wallTop, wallBottom, wallRgb;
+	private int[] goalTop, goalBottom;
+	private boolean castAll;
+	private boolean cacheValid;
+	private double cacheX, cacheY;
+	private long cacheHeading;
+	private int cacheVersion;
+	private int spriteLeft, spriteRight, spriteHalf;
+	private double spriteDepth;
+	private ForkJoinPool renderPool;
+	private ColumnStrip[] strips;
+	private RecursiveAction renderAll;
+	private final FrameMetrics metrics;
+	private final Font metricsFont;
+	private boolean showMetrics;
+	private BufferedImage frame;
+	private int renderThreads;
+	private ResolutionController resolution;
+	private boolean viewValid;
+	private int viewMode;
+	private Actor viewActor;
+	private double viewX, viewY, viewDirection;
+	private int viewVersion;
+	private BufferStrategy shownStrategy;
 	private final int FOV = 75;
 	private final int WIDTH;
 	private final int HEIGHT;
-	private final double ANGLE_INC;
-	private final double PROJ_DIST;
-	private final int CENTER_HEIGHT;
+	private int renderW, renderH;
+	private double angleInc;
+	private double projDist;
+	private int centerHeight;
+	private double wallScale;
+	private double goalScale;
+	private static final int SKY = Color.CYAN.getRGB() & 0xFFFFFF;
+	private static final int FLOOR = Color.PINK.getRGB() & 0xFFFFFF;
+	private static final int GOAL = Color.BLUE.getRGB() & 0xFFFFFF;
+	private static final int VIEW_SAME = 0, VIEW_HUD = 1, VIEW_ALL = 2;
+	private static final double SPRITE_SIZE = 8;
+	private static final Compass[] COMPASS = Compass.values();
 	
 	/**
 	 * Constructor to create a new Camera object
@@ -38,66 +96,205 @@ public class Camera extends JPanel {
 		this.WIDTH = w;
 		this.HEIGHT = h;
 		this.engine = engine;
-		this.ANGLE_INC = (double)FOV/(double)WIDTH;
-		this.CENTER_HEIGHT = HEIGHT/2;
-		this.PROJ_DIST = (HEIGHT/2) / Math.tan(Math.toRadians(FOV/2));
 		image = new BufferedImage (WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+		this.buffG = image.getGraphics();
+		this.imagePixels = ((DataBufferInt)image.getRaster().getDataBuffer()).getData();
+		setRenderScale(1);
+		this.shades = new int[256];
+		for (int intensity = 0; intensity < shades.length; intensity++) {
+			shades[intensity] = ((255-intensity) << 16) | (255-intensity);
+		}
+		this.hudFont = new Font("Dialog",Font.BOLD, 36);
+		int hudRows = Math.min(HEIGHT/16 + buffG.getFontMetrics(hudFont).getDescent() + 1, HEIGHT);
+		this.hudBackup = new int[hudRows * WIDTH];
+		this.hudTime = -1;
+		this.mapZoom = 16;
+		this.rays = rayEngine(System.getProperty("rays.engine", "grid"));
+		this.hit = new RayHit();
+		this.metrics = new FrameMetrics();
+		this.metricsFont = new Font("Monospaced", Font.PLAIN, 14);
+		setRayStep(Integer.getInteger("rays.step", 1), Double.parseDouble(System.getProperty("rays.tolerance", "8")));
+		setRenderThreads(Runtime.getRuntime().availableProcessors());
 	}
 	
 	/**
 	 * Main draw loop method that draws either the 2D/3D map based off of variables, or draws nothing if the
-	 * title screen is currently shown 
+	 * title screen is currently shown. The frame is put on screen through the Game's BufferStrategy during
+	 * play, or painted straight onto the Camera if there isn't one. Drawing the frame and putting it on screen
+	 * are timed separately in the frame metrics, and if a frame budget was set, the time drawing a 3D frame took
+	 * picks the resolution the next ones are rendered at; putting it on screen isn't counted, since it can wait on
+	 * the display's refresh however small the frame is. If nothing on screen would change (the actor hasn't moved or
+	 * turned, the view and map are the same, and so is the timer) the frame is skipped, and if only the timer
+	 * changed, only the timer is drawn again
 	 */
 	protected void draw () {
-		Graphics g = this.getGraphics();
-		Graphics buffG = image.getGraphics();
-		if (!engine.isTitle()) {
-			if (!engine.isShowMap() && !engine.isBot()) {
-				draw3D(buffG, engine.player);
-			} else if (engine.isBot() && !engine.isShowMap()){
-				draw3D(buffG, engine.bot); 
-			} else if (engine.isBot() && engine.isShowMap()){
-				draw2D(buffG, engine.bot);
+		long start = System.nanoTime();
+		Actor actor = engine.isBot() ? engine.bot : engine.player;
+		BufferStrategy strategy = engine.getStrategy();
+		int change = viewChange(actor);
+		if (change == VIEW_SAME && (strategy == null || (strategy == shownStrategy && !strategy.contentsLost()))) {
+			return;
+		}
+		if (change == VIEW_ALL && !engine.isTitle()) {
+			if (!engine.isShowMap()) {
+				draw3D(buffG, actor);
 			} else {
-				draw2D(buffG, engine.player);
+				draw2D(buffG, actor);
+			}
+			if (showMetrics) {
+				drawMetrics(buffG);
 			}
+		} else if (change == VIEW_HUD) {
+			restoreHud();
+			drawHud(buffG, actor);
+		}
+		long present = System.nanoTime();
+		shownStrategy = strategy;
+		if (strategy != null) {
+			present(strategy);
+		} else {
+			Graphics g = this.getGraphics();
+			if (g != null) {
+				g.drawImage(image, 0, 0, engine);
+				g.dispose();
+			}
+		}
+		long end = System.nanoTime();
+		metrics.record(FrameMetrics.DRAW, present - start);
+		metrics.record(FrameMetrics.PRESENT, end - present);
+		metrics.frameDone();
+		if (change == VIEW_ALL && resolution != null && !engine.isTitle() && !engine.isShowMap()
+				&& resolution.frameTime(present - start)) {
+			setRenderScale(resolution.getScale());
 		}
-
-		g.drawImage(image, 0, 0, engine);
-		g.dispose();
+	}
+	
+	/**
+	 * Works out what has changed on screen since the last frame drawn, and remembers what this frame shows
+	 * @param actor - Actor currently running maze
+	 * @return - VIEW_ALL if the whole frame has to be drawn, VIEW_HUD if only the timer changed, or VIEW_SAME
+	 */
+	private int viewChange(Actor actor) {
+		int mode = engine.isTitle() ? 0 : (engine.isShowMap() ? 2 : 1);
+		boolean same = viewValid && !showMetrics && mode == viewMode;
+		if (same && mode != 0) {
+			same = actor == viewActor && actor.x == viewX && actor.y == viewY && actor.direction == viewDirection
+					&& map.getVersion() == viewVersion;
+		}
+		viewValid = true;
+		viewMode = mode;
+		if (mode != 0) {
+			viewActor = actor;
+			viewX = actor.x;
+			viewY = actor.y;
+			viewDirection = actor.direction;
+			viewVersion = map.getVersion();
+		}
+		if (!same) {
+			return VIEW_ALL;
+		}
+		return (mode == 1 && (int)actor.getTime() != hudTime) ? VIEW_HUD : VIEW_SAME;
+	}
+	
+	/**
+	 * Makes the next frame be drawn in full, even if nothing it tracks has changed
+	 */
+	private void invalidateView() {
+		viewValid = false;
+	}
+	
+	/* Any repaint Swing still does on its own (the window being uncovered, say) shows the last finished frame
+	 * instead of a blank panel
+	 * (non-Javadoc)
+	 * @see javax.swing.JComponent#paintComponent(java.awt.Graphics)
+	 */
+	@Override
+	protected void paintComponent(Graphics g) {
+		g.drawImage(image, 0, 0, null);
+	}
+	
+	/**
+	 * Puts the finished frame on screen through the Game's BufferStrategy, at the Camera's spot in the frame.
+	 * The frame is drawn again if the strategy's buffers were lost or restored while drawing, and the window
+	 * system is synced afterward so the frame isn't left sitting in a queue
+	 * @param strategy - BufferStrategy of the Game frame
+	 */
+	private void present(BufferStrategy strategy) {
+		Point offset = SwingUtilities.convertPoint(this, 0, 0, engine);
+		do {
+			do {
+				Graphics g = strategy.getDrawGraphics();
+				g.drawImage(image, offset.x, offset.y, null);
+				g.dispose();
+			} while (strategy.contentsRestored());
+			strategy.show();
+		} while (strategy.contentsLost());
+		Toolkit.getDefaultToolkit().sync();
+	}
+	
+	/**
+	 * Draws the frame metrics overlay in the bottom left corner
+	 * @param g - graphics object of the BufferedImage
+	 */
+	private void drawMetrics(Graphics g) {
+		String[] lines = metrics.getOverlay();
+		int lineHeight = 18;
+		int top = HEIGHT - lineHeight * (lines.length + 2);
+		g.setColor(Color.BLACK);
+		g.fillRect(0, top, WIDTH, HEIGHT - top);
+		g.setColor(Color.WHITE);
+		g.setFont(metricsFont);
+		for (int i = 0; i < lines.length; i++) {
+			g.drawString(lines[i], 8, top + lineHeight * (i + 1));
+		}
+		g.drawString("render " + renderW + "x" + renderH, 8, top + lineHeight * (lines.length + 1));
+	}
+	
+	/**
+	 * Shows or hides the frame metrics overlay
+	 */
+	protected void toggleMetrics() {
+		showMetrics = !showMetrics;
+		invalidateView();
+	}
+	
+	/**
+	 * @return - frame timing and counters for this Camera
+	 */
+	protected FrameMetrics getMetrics() {
+		return metrics;
 	}
 		
 	/**
-	 * Draws the 2D map onto the BufferedImage's graphics object
+	 * Draws the 2D map onto the BufferedImage's graphics object; the maze (and the bot's route, which is only
+	 * solved the first time it's shown) comes from the cached MapLayer, so only the visible part of the map 
+	 * is blitted before the actor and goal are drawn over it
 	 * @param g - Graphics object that coincides with the BufferedImage
 	 * @param actor - Actor currently running maze
 	 */
 	private void draw2D(Graphics g, Actor actor) {
-	
+		FrameEvent event = new FrameEvent();
+		event.begin();
 		g.setColor(Color.BLACK);
 		g.fillRect(0, 0, WIDTH, HEIGHT);
 		
-		g.setColor(Color.WHITE);
-		for (int i = 0; i < map.length; i++) {
-			for (int j = 0; j < map.length; j++) {
-				if (map[i][j] == 0) {
-					g.fillRect((i*16), (j*16), 16, 16);
-				}
-			}
-		}
-		if (engine.isBot()) {
-			Stack<Point> route = engine.maze.shortestPath();
-			g.setColor(Color.GREEN);	
-			while (!route.isEmpty()) {
-				Point a = route.pop();
-				g.fillRect(((int)a.getX()*16), ((int)a.getY()*16), 16, 16);
-			}
+		if (engine.isBot() && !mapLayer.hasRoute()) {
+			mapLayer.setRoute(engine.maze.solve(engine.solver).getCells());
 		}
+		mapLayer.draw(g, mapZoom, actor.x/32, actor.y/32, WIDTH, HEIGHT, engine.isBot());
+		int left = mapLayer.getOriginX();
+		int top = mapLayer.getOriginY();
 		g.setColor(Color.RED);
-		g.fillOval((int)actor.x/2 - 5, (int)actor.y/2 - 5, 10, 10);
+		g.fillOval(left + (int)(actor.x*mapZoom/32) - 5, top + (int)(actor.y*mapZoom/32) - 5, 10, 10);
 		g.setColor(Color.BLUE);
 		Point goal = this.goal.getPos();
-		g.fillOval((int)goal.getX() * 16, (int)goal.getY() * 16, 10, 10);
+		g.fillOval(left + (int)goal.getX() * mapZoom, top + (int)goal.getY() * mapZoom, 10, 10);
+		if (event.shouldCommit()) {
+			event.mode = "2D";
+			event.width = WIDTH;
+			event.height = HEIGHT;
+			event.commit();
+		}
 		
 //		Old raycasting test in 2D; no need to show on minimap
 //		g.setColor(Color.BLUE);
@@ -111,101 +308,528 @@ public class Camera extends JPanel {
 	}
 
 	/**
-	 * Draws the 3D world for the player onto the BufferedImage's graphics object
+	 * Draws the 3D world for the player onto the BufferedImage; every column (sky, wall and floor) is written 
+	 * straight into the render frame's pixels, either on this thread or split into strips across the render pool,
+	 * and a frame smaller than the window is then stretched over the whole image. Only the timer is drawn through
+	 * the graphics object, after stretching, so it stays sharp. The heading is rounded to a whole number of
+	 * columns, so when the actor has only turned since the last frame, the rays it cast are the same rays moved
+	 * over by a few columns; those are shifted along and only the columns that came into view are cast again.
+	 * The goal isn't looked for by the rays; it's projected once as a sprite and drawn in the columns where it's
+	 * nearer than the wall. The column pass is timed as the frame's ray stage, along with the number of rays cast
+	 * and grid cells stepped
 	 * @param g - graphics object of the BufferedImage
 	 * @param actor - Actor currently running maze
 	 */
-	private void draw3D(Graphics g, Actor actor) {
-		g.setColor(Color.CYAN);
-		g.fillRect(0, 0, WIDTH, HEIGHT/2);
-		g.setColor(Color.PINK);
-		g.fillRect(0, HEIGHT/2, WIDTH, HEIGHT/2);
-		for (int i = -(WIDTH/2); i < (WIDTH/2); i++) {
-			double angle = Math.toRadians(actor.direction + (i *ANGLE_INC));
-			double length = rayCast(actor.x, actor.y, angle, i, g);
-			drawWall(g, length, i+(WIDTH/2), angle, actor);
-			foundGoal = false;
+	protected void draw3D(Graphics g, Actor actor) {
+		FrameEvent event = new FrameEvent();
+		event.begin();
+		frameActor = actor;
+		long heading = Math.round(actor.direction / angleInc);
+		frameHeading = heading;
+		rays.prepare(map);
+		projectSprite(actor, goal);
+		long start = System.nanoTime();
+		int shift = cachedShift(actor, heading);
+		castAll = Math.abs(shift) >= renderW;
+		long cells = 0;
+		if (shift > 0 && !castAll) {
+			System.arraycopy(columnDist, shift, columnDist, 0, renderW - shift);
+			cells = castColumns(actor, renderW - shift, renderW, hit);
+		} else if (shift < 0 && !castAll) {
+			System.arraycopy(columnDist, 0, columnDist, -shift, renderW + shift);
+			cells = castColumns(actor, 0, -shift, hit);
+		}
+		if (renderPool == null) {
+			if (castAll) {
+				cells = castColumns(actor, 0, renderW, hit);
+			}
+			shadeColumns(0, renderW);
+		} else {
+			renderAll.reinitialize();
+			renderPool.invoke(renderAll);
+			for (ColumnStrip strip: strips) {
+				cells += strip.cells;
+			}
+		}
+		cacheValid = true;
+		cacheX = actor.x;
+		cacheY = actor.y;
+		cacheHeading = heading;
+		cacheVersion = map.getVersion();
+		metrics.record(FrameMetrics.RAYS, System.nanoTime() - start);
+		int cast = castAll ? raysIn(0, renderW) : (shift > 0 ? raysIn(renderW - shift, renderW) : raysIn(0, -shift));
+		metrics.countRays(cast, cells);
+		frameActor = null;
+		if (frame != image) {
+			g.drawImage(frame, 0, 0, WIDTH, HEIGHT, null);
+		}
+		System.arraycopy(imagePixels, 0, hudBackup, 0, hudBackup.length);
+		drawHud(g, actor);
+		if (event.shouldCommit()) {
+			event.mode = "3D";
+			event.width = renderW;
+			event.height = renderH;
+			event.rays = cast;
+			event.cells = cells;
+			event.threads = (renderPool == null) ? 1 : renderPool.getParallelism();
+			event.commit();
+		}
+	}
+	
+	/**
+	 * Draws the timer in the top left corner; its text is only made again when the whole second changes
+	 * @param g - graphics object of the BufferedImage
+	 * @param actor - Actor currently running maze
+	 */
+	private void drawHud(Graphics g, Actor actor) {
+		if ((int)actor.getTime() != hudTime) {
+			hudTime = (int)actor.getTime();
+			hudText = "Time: " + hudTime;
 		}
 		g.setColor(Color.WHITE);
-		g.setFont(new Font("Dialog",Font.BOLD, 36));
-		g.drawString("Time: " + (int)actor.getTime(), WIDTH/32, HEIGHT/16);
+		g.setFont(hudFont);
+		g.drawString(hudText, WIDTH/32, HEIGHT/16);
 	}
 	
 	/**
-	 * Casts a ray and measures the distance between where the ray was casted and any 
-	 * walls that it intersects, returning that value
+	 * Puts back the rows under the timer as they were before it was drawn over the last 3D frame
+	 */
+	private void restoreHud() {
+		System.arraycopy(hudBackup, 0, imagePixels, 0, hudBackup.length);
+	}
+	
+	/**
+	 * Works out how far the columns of the last frame moved, if the only thing that changed since then is the
+	 * heading: same spot, same map, same render size
+	 * @param actor - Actor currently running maze
+	 * @param heading - heading of this frame, in columns
+	 * @return - number of columns the last frame's rays moved left, or renderW if none of them can be kept
+	 */
+	private int cachedShift(Actor actor, long heading) {
+		if (!cacheValid || actor.x != cacheX || actor.y != cacheY || map.getVersion() != cacheVersion) {
+			return renderW;
+		}
+		return (int)Math.max(-renderW, Math.min(renderW, heading - cacheHeading));
+	}
+	
+	/**
+	 * Casts every column in the range [from, to) and keeps the wall distances for the shading pass; all
+	 * per ray values live in the RayHit passed in, so separate ranges can be cast at the same time as long as each
+	 * has its own RayHit. Each ray's direction is looked up by its whole number of columns from 0 degrees
+	 * (frameHeading, set by draw3D, plus its column), so a column shifted over from the last frame holds exactly the
+	 * ray that would be cast for it now, and no sin or cos is worked out while casting
+	 * @param actor - Actor currently running maze
+	 * @param from - first column (0 is the left edge of the screen's ray fan)
+	 * @param to - column to stop before
+	 * @param hit - RayHit used for this range only
+	 * @return - number of grid cells the range's rays stepped through
+	 */
+	protected long castColumns(Actor actor, int from, int to, RayHit hit) {
+		long cells = 0;
+		if (rayStep <= 1 || to - from <= 2) {
+			for (int x = from; x < to; x++) {
+				cells += castColumn(actor, x, hit);
+			}
+			return cells;
+		}
+		cells += castColumn(actor, from, hit);
+		for (int left = from; left < to - 1;) {
+			int right = Math.min(left + rayStep, to - 1);
+			cells += castColumn(actor, right, hit);
+			cells += fillSpan(actor, left, right, hit);
+			left = right;
+		}
+		return cells;
+	}
+	
+	/**
+	 * Casts the ray of one column and keeps what it hit
+	 * @param actor - Actor currently running maze
+	 * @param x - column to cast
+	 * @param hit - RayHit to cast with
+	 * @return - number of grid cells the ray stepped through
+	 */
+	private long castColumn(Actor actor, int x, RayHit hit) {
+		int angle = (int)frameHeading + x;
+		rays.cast(map, actor.x, actor.y, raySin[angle], rayCos[angle], hit);
+		columnDist[x] = hit.distance;
+		columnCell[x] = hit.cellX * map.getHeight() + hit.cellY;
+		columnFace[x] = (byte)hit.face.ordinal();
+		return hit.steps;
+	}
+	
+	/**
+	 * Projects a GameObject onto the screen as a flat, square sprite standing in the middle of its cell and
+	 * facing the actor: how far ahead it is, which columns of the ray fan it covers, and how tall it is on screen.
+	 * It's left off (no columns) when it's behind the actor or too close to draw
+	 * @param actor - Actor currently running maze
+	 * @param object - GameObject to project
+	 */
+	private void projectSprite(Actor actor, GameObject object) {
+		Point pos = object.getPos();
+		double dx = pos.x*32 + 16 - actor.x;
+		double dy = pos.y*32 + 16 - actor.y;
+		double sin = raySin[(int)frameHeading + renderW/2];
+		double cos = rayCos[(int)frameHeading + renderW/2];
+		spriteDepth = dx*sin + dy*cos;
+		if (spriteDepth < SPRITE_SIZE) {
+			spriteLeft = 0;
+			spriteRight = 0;
+			return;
+		}
+		double side = dx*cos - dy*sin;
+		spriteLeft = Math.max((int)Math.ceil(Math.toDegrees(Math.atan2(side - SPRITE_SIZE, spriteDepth)) / angleInc)
+				+ renderW/2, 0);
+		spriteRight = Math.min((int)Math.floor(Math.toDegrees(Math.atan2(side + SPRITE_SIZE, spriteDepth)) / angleInc)
+				+ renderW/2 + 1, renderW);
+		spriteHalf = (int)Math.min(goalScale / spriteDepth, renderH);
+	}
+	
+	/**
+	 * Fills in the columns between two cast columns. If both rays hit the same face of the same wall cell and their
+	 * distances are within the tolerance of each other, every ray between them hits that face too (unless a corner
+	 * pokes in between), so the columns are filled in from the face's plane without being cast. Otherwise the
+	 * middle column is cast and both halves are tried again
+	 * @param actor - Actor currently running maze
+	 * @param left - cast column on the left
+	 * @param right - cast column on the right
+	 * @param hit - RayHit to cast with
+	 * @return - number of grid cells the rays cast for the span stepped through
+	 */
+	private long fillSpan(Actor actor, int left, int right, RayHit hit) {
+		if (right - left < 2) {
+			return 0;
+		}
+		if (columnCell[left] == columnCell[right] && columnFace[left] == columnFace[right]
+				&& Math.abs(columnDist[left] - columnDist[right]) <= rayTolerance) {
+			fillFace(left, right);
+			return 0;
+		}
+		int mid = (left + right) >>> 1;
+		long cells = castColumn(actor, mid, hit);
+		return cells + fillSpan(actor, left, mid, hit) + fillSpan(actor, mid, right, hit);
+	}
+	
+	/**
+	 * Fills in the distances of the columns between two that hit the same flat face. Ray engines take a hit's
+	 * distance straight from the grid line the face lies on, so each column between gets its distance the same
+	 * way, and comes out exactly as if it had been cast
+	 * @param left - cast column on the left
+	 * @param right - cast column on the right
+	 */
+	private void fillFace(int left, int right) {
+		int cell = columnCell[left];
+		int cellX = cell / map.getHeight();
+		int cellY = cell % map.getHeight();
+		Compass face = COMPASS[columnFace[left]];
+		for (int x = left + 1; x < right; x++) {
+			int angle = (int)frameHeading + x;
+			columnDist[x] = RayEngine.faceDistance(cellX, cellY, face, frameActor.x, frameActor.y, raySin[angle],
+					rayCos[angle]);
+			columnCell[x] = cell;
+			columnFace[x] = -1;
+		}
+	}
+	
+	/**
+	 * @param from - first column
+	 * @param to - column to stop before
+	 * @return - number of columns in the range that were cast rather than filled in
+	 */
+	private int raysIn(int from, int to) {
+		int count = 0;
+		for (int x = from; x < to; x++) {
+			if (columnFace[x] >= 0) {
+				count++;
+			}
+		}
+		return count;
+	}
+	
+	/**
+	 * Sets how sparsely the 3D view is cast: every step'th column is cast, and the columns between two cast ones
+	 * are only cast where those two hit different walls or faces, or distances further apart than the tolerance;
+	 * the rest are filled in. A step of 1 casts every column
+	 * @param step - number of columns between the ones always cast
+	 * @param tolerance - biggest difference in distance, in world units, two cast columns can have and still be
+	 * filled in between
+	 */
+	protected void setRayStep(int step, double tolerance) {
+		rayStep = Math.max(step, 1);
+		rayTolerance = tolerance;
+		cacheValid = false;
+		invalidateView();
+	}
+	
+	/**
+	 * Draws every column in the range [from, to) from the distances kept by the cast: each column's lines are
+	 * worked out first, then the pixels are filled a row at a time, so the pixels are written in the order they sit
+	 * in memory instead of a whole row's width apart
+	 * @param from - first column
+	 * @param to - column to stop before
+	 */
+	private void shadeColumns(int from, int to) {
+		for (int x = from; x < to; x++) {
+			drawWall(x);
+		}
+		fillRows(renderW - to, renderW - from);
+	}
+	
+	/**
+	 * Casts a ray through the current RayEngine and measures the distance between where the ray was casted and 
+	 * the wall that it hits, returning that value
 	 * @param x - X-position of player
 	 * @param y - Y-position of player
 	 * @param angle - angle of cast ray, relative to player's facing angle
-	 * @param i - current location in loop/which pixel column to draw to
-	 * @param g - graphics object of BufferedImage
+	 * @param hit - RayHit to fill in
 	 * @return - distance between cast ray and nearest wall
 	 */
-	private double rayCast (double x, double y,double angle, int i, Graphics g) {
-		double length = 0;
-		double sin = Math.sin(angle);
-		double cos = Math.cos(angle);
-		int x2, y2;
-		do {
-			length += .1;
-			x2 = (int) (x + length*sin);
-			y2 = (int) (y + length*cos);
-			if (!foundGoal) {
-				Point coordinate = new Point(x2/32, y2/32);
-				if (coordinate.equals(goal.getPos())) {
-					foundGoal = true;
-					goalDist = length;
-				}
-			}
-		} while (map[x2/32][y2/32] != 1);
-		return length;
+	protected double rayCast (double x, double y, double angle, RayHit hit) {
+		rays.prepare(map);
+		rays.cast(map, x, y, Math.sin(angle), Math.cos(angle), hit);
+		return hit.distance;
 	}
 	
 	/**
-	 * Draws a line that corresponds with relative height of the wall that intercepted the cast ray, and draws
-	 * that line onto the screen. After all pixel columns are filled, a pseudo-3d image is created
-	 * @param g - Graphics object of BufferedImage
-	 * @param dist - distance calculated between cast ray and wall
-	 * @param x - X-coordinates where to draw line on Graphics object
-	 * @param angle - angle at which the ray was cast
-	 * @param actor - Actor currently running maze
+	 * Works out the line that corresponds with relative height of the wall that intercepted the cast ray, along
+	 * with the sky above and floor below it, and the goal sprite's line if it covers the column in front of the wall;
+	 * fillRows then puts them in the pixel column. After all pixel columns are filled, a pseudo-3d image is created
+	 * @param x - column of the ray fan to draw, using the distances its ray was last cast to
 	 */
-	private void drawWall(Graphics g, double dist, int x, double angle, Actor actor) {
-		double relativeAngle = Math.toRadians(actor.direction) - angle;
-		double adjDist = dist * Math.cos(relativeAngle);
-        double wallHeight = (32*PROJ_DIST / (adjDist));
+	protected void drawWall(int x) {
+		double adjDist = columnDist[x] * rayOffCos[x];
+        double wallHeight = (wallScale / (adjDist));
         int intensity = (int)(adjDist);
         if (intensity > 255) {
         	intensity = 255;
         }
-        g.setColor(new Color(255-intensity,0,255-intensity));
-        if (foundGoal && (adjDist > goalDist)) {
-        	g.drawLine(Math.abs(x-(WIDTH-1)), CENTER_HEIGHT - (int)wallHeight, Math.abs(x-(WIDTH-1)), CENTER_HEIGHT + (int)wallHeight);
-        	g.setColor(Color.BLUE);
-        	drawGoal(g, x, angle);
+        int column = Math.abs(x-(renderW-1));
+        int half = (int)Math.min(wallHeight, renderH);
+        wallTop[column] = Math.max(centerHeight - half, 0);
+        wallBottom[column] = Math.min(centerHeight + half, renderH-1);
+        wallRgb[column] = shades[intensity];
+        if (x >= spriteLeft && x < spriteRight && spriteDepth < adjDist) {
+        	goalTop[column] = Math.max(centerHeight - spriteHalf, 0);
+        	goalBottom[column] = Math.min(centerHeight + spriteHalf, renderH-1);
         } else {
-            g.drawLine(Math.abs(x-(WIDTH-1)), CENTER_HEIGHT - (int)wallHeight, Math.abs(x-(WIDTH-1)), CENTER_HEIGHT + (int)wallHeight);
+        	goalTop[column] = renderH;
+        	goalBottom[column] = -1;
         }
 	}
 	
 	/**
-	 * Draws the goal/portal onto the 3D plane, similarly to the way that the walls are drawn (it's pretty much a small wall)
-	 * @param g - Graphics object of BufferedImage
-	 * @param x - X-coordinate corresponding with line column to draw
-	 * @param angle - relative angle of ray cast
+	 * Fills the pixels of a range of pixel columns a row at a time, from the lines drawWall worked out for them;
+	 * the goal goes over the wall, sky and floor
+	 * @param left - first pixel column to fill
+	 * @param right - pixel column to stop before
+	 */
+	private void fillRows(int left, int right) {
+		for (int y = 0, row = 0; y < renderH; y++, row += renderW) {
+			for (int column = left; column < right; column++) {
+				int rgb;
+				if (y >= goalTop[column] && y <= goalBottom[column]) {
+					rgb = GOAL;
+				} else if (y < wallTop[column]) {
+					rgb = SKY;
+				} else if (y <= wallBottom[column]) {
+					rgb = wallRgb[column];
+				} else {
+					rgb = FLOOR;
+				}
+				pixels[row + column] = rgb;
+			}
+		}
+	}
+	
+	/**
+	 * Sets how many threads draw the 3D view; 1 or less draws every column on the game thread. Any thread count
+	 * gives the same image, since each column is drawn the same way no matter which thread draws it
+	 * @param threads - number of threads to draw with
 	 */
-	private void drawGoal(Graphics g, int x, double angle) {
-        double goalHeight = (8*PROJ_DIST / (goalDist));
-        g.drawLine(Math.abs(x-(WIDTH-1)), CENTER_HEIGHT - (int)(goalHeight), Math.abs(x-(WIDTH-1)), CENTER_HEIGHT + (int)(goalHeight));
+	protected void setRenderThreads(int threads) {
+		if (renderPool != null) {
+			renderPool.shutdown();
+			renderPool = null;
+		}
+		renderThreads = threads;
+		if (threads <= 1) {
+			return;
+		}
+		buildStrips();
+		renderAll = new RecursiveAction() {
+			private static final long serialVersionUID = 1L;
+			
+			@Override
+			protected void compute() {
+				for (ColumnStrip strip: strips) {
+					strip.reinitialize();
+				}
+				ForkJoinTask.invokeAll(strips);
+			}
+		};
+		renderPool = new ForkJoinPool(threads);
 	}
-
+	
+	/**
+	 * Splits the rendered columns into strips for the render pool, four per thread
+	 */
+	private void buildStrips() {
+		int count = Math.min(renderThreads * 4, renderW);
+		ColumnStrip[] strips = new ColumnStrip[count];
+		for (int i = 0; i < count; i++) {
+			strips[i] = new ColumnStrip((renderW * i) / count, (renderW * (i+1)) / count);
+		}
+		this.strips = strips;
+	}
+	
+	/**
+	 * Sets the resolution the 3D view is rendered at, as a fraction of the window's width and height; the ray
+	 * fan, projection and render strips are worked out again for the new size. At 1 the view is drawn straight
+	 * into the image that goes on screen, otherwise into a smaller frame that's stretched over it
+	 * @param scale - fraction of the window's size to render at
+	 */
+	protected void setRenderScale(double scale) {
+		int w = Math.max(1, (int)Math.round(WIDTH * scale));
+		int h = Math.max(2, (int)Math.round(HEIGHT * scale));
+		if (frame != null && w == renderW && h == renderH) {
+			return;
+		}
+		renderW = w;
+		renderH = h;
+		angleInc = (double)FOV/(double)renderW;
+		centerHeight = renderH/2;
+		projDist = (renderH/2) / Math.tan(Math.toRadians(FOV/2));
+		wallScale = 32*projDist;
+		goalScale = 8*projDist;
+		rayOffCos = new double[renderW];
+		columnDist = new double[renderW];
+		columnCell = new int[renderW];
+		columnFace = new byte[renderW];
+		wallTop = new int[renderW];
+		wallBottom = new int[renderW];
+		wallRgb = new int[renderW];
+		goalTop = new int[renderW];
+		goalBottom = new int[renderW];
+		cacheValid = false;
+		invalidateView();
+		for (int x = 0; x < renderW; x++) {
+			double offset = Math.toRadians((x - (renderW/2)) * angleInc);
+			rayOffCos[x] = Math.cos(offset);
+		}
+		// one entry per whole column of heading, from the left edge of the fan at 0 degrees to its right edge at 360
+		int turn = (int)Math.round(360 / angleInc);
+		raySin = new double[turn + 2*(renderW/2) + 1];
+		rayCos = new double[raySin.length];
+		for (int i = 0; i < raySin.length; i++) {
+			double angle = Math.toRadians((i - renderW/2) * angleInc);
+			raySin[i] = Math.sin(angle);
+			rayCos[i] = Math.cos(angle);
+		}
+		frame = (w == WIDTH && h == HEIGHT) ? image : new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+		pixels = ((DataBufferInt)frame.getRaster().getDataBuffer()).getData();
+		if (renderPool != null) {
+			buildStrips();
+		}
+	}
+	
+	/**
+	 * Sets the time drawing a 3D frame should take, not counting putting it on screen; from then on the render
+	 * resolution drops when frames run over it and comes back up when there's room again
+	 * @param nanos - frame time to hold, in nanoseconds, or 0 to always render at full resolution
+	 */
+	protected void setFrameBudget(long nanos) {
+		resolution = (nanos > 0) ? new ResolutionController(nanos) : null;
+		setRenderScale(1);
+	}
+	
 	/**
 	 * Sets new map for Camera; used when new map is generated by Game 
-	 * @param map - new Map object
+	 * @param map - new Grid holding the map
 	 * @param goal - new goal located within map
 	 */
-	protected void setMap(int[][] map, Portal goal) {
+	protected void setMap(Grid map, Portal goal) {
 		this.map = map;
+		this.mapLayer = new MapLayer(map);
 		this.goal = goal;
+		this.cacheValid = false;
+		invalidateView();
+	}
+	
+	/**
+	 * Zooms the 2D map in or out by doubling or halving the size of each cell on screen
+	 * @param in - true to zoom in, false to zoom out
+	 */
+	protected void zoomMap(boolean in) {
+		if (in) {
+			mapZoom = Math.min(mapZoom * 2, 64);
+		} else {
+			mapZoom = Math.max(mapZoom / 2, 1);
+		}
+		invalidateView();
+	}
+	
+	/**
+	 * @return - image the Camera draws each frame into before it goes to the screen
+	 */
+	protected BufferedImage getImage() {
+		return image;
+	}
+	
+	/**
+	 * Picks a RayEngine by name
+	 * @param name - "march" for the fixed step MarchRayEngine, "field" for the DistanceFieldRayEngine, or
+	 * anything else for the GridRayEngine
+	 * @return - new RayEngine
+	 */
+	protected static RayEngine rayEngine(String name) {
+		if (name.equals("march")) {
+			return new MarchRayEngine();
+		} else if (name.equals("field")) {
+			return new DistanceFieldRayEngine();
+		}
+		return new GridRayEngine();
+	}
+	
+	/**
+	 * Swaps the RayEngine used to cast rays for the 3D view
+	 * @param rays - RayEngine to use from now on
+	 */
+	protected void setRayEngine(RayEngine rays) {
+		this.rays = rays;
+		this.cacheValid = false;
+		invalidateView();
+	}
+	
+	/**
+	 * Range of screen columns drawn as one task in the render pool, with its own RayHit so no ray state is 
+	 * shared between threads
+	 */
+	private class ColumnStrip extends RecursiveAction {
+		
+		private static final long serialVersionUID = 1L;
+		private final int from, to;
+		private final RayHit hit;
+		private long cells;
+		
+		/**
+		 * Constructor
+		 * @param from - first column of strip
+		 * @param to - column to stop before
+		 */
+		private ColumnStrip(int from, int to) {
+			this.from = from;
+			this.to = to;
+			this.hit = new RayHit();
+		}
+		
+		/* Casts this strip's columns if the whole frame is being cast, then draws them
+		 * (non-Javadoc)
+		 * @see java.util.concurrent.RecursiveAction#compute()
+		 */
+		@Override
+		protected void compute() {
+			cells = castAll ? castColumns(frameActor, from, to, hit) : 0;
+			shadeColumns(from, to);
+		}
 	}
 }
\ No newline at end of file
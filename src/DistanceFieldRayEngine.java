@@ -0,0 +1,172 @@
+/**
+ * Ray engine that knows how much open space is around every cell: when the map is prepared, each cell gets the
+ * number of cells to the nearest wall (counting diagonal steps as one, so the open area around a cell is a
+ * square). A ray standing in a cell r cells from any wall can't hit anything for the next (r-1) cells in any
+ * direction, so it jumps that far in one go, and only steps cell by cell (the same way as the GridRayEngine)
+ * near walls. In a tight maze it's about the same as the GridRayEngine; in open rooms, or mazes with walls
+ * knocked out, rays cross the empty space in a few jumps
+ * @author Robin A. and Zach D.
+ */
+
+public class DistanceFieldRayEngine implements RayEngine {
+
+	private static final int CELL = 32;
+	private static final int MAX_DISTANCE = 255;
+	private static final double MARGIN = 1;
+	private static final int MIN_JUMP = 4;
+	private Grid map;
+	private int version;
+	private int height;
+	private byte[] field;
+
+	/* Works out the distance field again if the map is new or has changed since it was last built
+	 * (non-Javadoc)
+	 * @see RayEngine#prepare(Grid)
+	 */
+	@Override
+	public void prepare(Grid map) {
+		if (map == this.map && map.getVersion() == version && field != null) {
+			return;
+		}
+		this.map = map;
+		this.version = map.getVersion();
+		this.height = map.getHeight();
+		this.field = build(map);
+	}
+
+	/**
+	 * Builds the distance field in two passes over the grid: one from the top left corner that takes the
+	 * distances from the neighbours already passed, then one back from the bottom right corner that does the
+	 * same from the other side. Anything outside the grid counts as a wall
+	 * @param map - Grid to build the field for
+	 * @return - distance in cells from each cell to the nearest wall, capped at 255, by cell number
+	 */
+	private static byte[] build(Grid map) {
+		int width = map.getWidth();
+		int height = map.getHeight();
+		int[] distance = new int[width * height];
+		for (int x = 0; x < width; x++) {
+			for (int y = 0; y < height; y++) {
+				int d = 0;
+				if (!map.isWall(x, y)) {
+					d = Math.min(Math.min(x, y), Math.min(width - 1 - x, height - 1 - y)) + 1;
+					if (x > 0) {
+						d = Math.min(d, distance[(x-1)*height + y] + 1);
+						if (y > 0) {
+							d = Math.min(d, distance[(x-1)*height + y-1] + 1);
+						}
+						if (y < height - 1) {
+							d = Math.min(d, distance[(x-1)*height + y+1] + 1);
+						}
+					}
+					if (y > 0) {
+						d = Math.min(d, distance[x*height + y-1] + 1);
+					}
+				}
+				distance[x*height + y] = d;
+			}
+		}
+		byte[] field = new byte[width * height];
+		for (int x = width - 1; x >= 0; x--) {
+			for (int y = height - 1; y >= 0; y--) {
+				int d = distance[x*height + y];
+				if (d > 0) {
+					if (x < width - 1) {
+						d = Math.min(d, distance[(x+1)*height + y] + 1);
+						if (y > 0) {
+							d = Math.min(d, distance[(x+1)*height + y-1] + 1);
+						}
+						if (y < height - 1) {
+							d = Math.min(d, distance[(x+1)*height + y+1] + 1);
+						}
+					}
+					if (y < height - 1) {
+						d = Math.min(d, distance[x*height + y+1] + 1);
+					}
+					distance[x*height + y] = d;
+				}
+				field[x*height + y] = (byte)Math.min(d, MAX_DISTANCE);
+			}
+		}
+		return field;
+	}
+
+	/* Jumps across open space and steps cell by cell near walls; after each jump the cell stepping starts over
+	 * from wherever the ray landed. If the field wasn't prepared for this map as it is now, the ray only steps
+	 * cell by cell
+	 * (non-Javadoc)
+	 * @see RayEngine#cast(Grid, double, double, double, double, RayHit)
+	 */
+	@Override
+	public void cast(Grid map, double x, double y, double sin, double cos, RayHit hit) {
+		hit.reset();
+		byte[] field = (map == this.map && map.getVersion() == version) ? this.field : null;
+		double deltaX = (sin == 0) ? Double.POSITIVE_INFINITY : Math.abs(CELL / sin);
+		double deltaY = (cos == 0) ? Double.POSITIVE_INFINITY : Math.abs(CELL / cos);
+		int stepX = (sin < 0) ? -1 : 1;
+		int stepY = (cos < 0) ? -1 : 1;
+		double start = 0;
+		int steps = 0;
+		while (true) {
+			double rayX = x + start*sin;
+			double rayY = y + start*cos;
+			int cellX = (int)rayX / CELL;
+			int cellY = (int)rayY / CELL;
+			double jump = jump(field, cellX, cellY);
+			if (jump > 0) {
+				start += jump;
+				steps++;
+				continue;
+			}
+			double sideX = (stepX < 0) ? (rayX - cellX*CELL) / -sin : ((cellX+1)*CELL - rayX) / sin;
+			double sideY = (stepY < 0) ? (rayY - cellY*CELL) / -cos : ((cellY+1)*CELL - rayY) / cos;
+			double dist;
+			Compass face;
+			do {
+				steps++;
+				if (sideX < sideY) {
+					dist = sideX;
+					sideX += deltaX;
+					cellX += stepX;
+					face = (stepX > 0) ? Compass.W : Compass.E;
+				} else {
+					dist = sideY;
+					sideY += deltaY;
+					cellY += stepY;
+					face = (stepY > 0) ? Compass.N : Compass.S;
+				}
+				if (map.isWall(cellX, cellY)) {
+					hit.steps = steps;
+					hit.distance = RayEngine.faceDistance(cellX, cellY, face, x, y, sin, cos);
+					hit.cellX = cellX;
+					hit.cellY = cellY;
+					hit.face = face;
+					return;
+				}
+				jump = jump(field, cellX, cellY);
+			} while (jump == 0);
+			start += dist + jump;
+		}
+	}
+
+	/**
+	 * Works out how far a ray can safely jump from anywhere in a cell. A jump costs about as much as stepping
+	 * a few cells (the landing spot has to be worked out before the next cell can be looked at), so short ones
+	 * aren't taken. The margin keeps it from landing right on the edge of a wall, where rounding could put it on
+	 * the wrong side
+	 * @param field - distance field for the map, or null to never jump
+	 * @param cellX - X index of cell
+	 * @param cellY - Y index of cell
+	 * @return - distance to jump in world units, or 0 if the ray should step to the next cell instead
+	 */
+	private double jump(byte[] field, int cellX, int cellY) {
+		if (field == null) {
+			return 0;
+		}
+		int open = (field[cellX*height + cellY] & 0xFF) - 1;
+		if (open < MIN_JUMP) {
+			return 0;
+		}
+		return open*CELL - MARGIN;
+	}
+}
@@ -0,0 +1,34 @@
+/**
+ * Flight Recorder event for one frame drawn by the Camera, 3D or 2D; the 3D frames carry how many rays were
+ * cast and grid cells stepped. Like every JFR event, it costs next to nothing while no recording is running
+ * @author Robin A. and Zach D.
+ */
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("maze.Frame")
+@Label("Frame")
+@Category("Maze Game")
+@Description("One frame drawn by the Camera")
+public class FrameEvent extends jdk.jfr.Event {
+
+	@Label("Mode")
+	String mode;
+
+	@Label("Width")
+	int width;
+
+	@Label("Height")
+	int height;
+
+	@Label("Rays")
+	long rays;
+
+	@Label("Cells Stepped")
+	long cells;
+
+	@Label("Render Threads")
+	int threads;
+}
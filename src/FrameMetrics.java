@@ -0,0 +1,176 @@
+/**
+ * Frame timing for the game: how long each stage of a frame takes (updating the actor, drawing the frame,
+ * casting the rays and putting the frame on screen), kept in one LatencyHistogram per stage, plus how many
+ * rays were cast, grid cells stepped and bytes allocated on the game thread per frame. Numbers cover a rolling
+ * ten second window; the overlay shows the current window, and if a file was given (with -Dmetrics.file=...)
+ * each finished window is appended to it as CSV
+ * @author Robin A. and Zach D.
+ */
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+
+public class FrameMetrics {
+
+	public static final int UPDATE = 0, DRAW = 1, RAYS = 2, PRESENT = 3;
+	private static final String[] STAGES = {"update", "draw", "rays", "present"};
+	private static final long WINDOW_NANOS = 10000000000L;
+	private static final long OVERLAY_NANOS = 500000000L;
+	private static final com.sun.management.ThreadMXBean THREADS = threadBean();
+	private final LatencyHistogram[] stages = new LatencyHistogram[STAGES.length];
+	private final String file;
+	private long frames, rays, cells, allocated;
+	private long lastAllocated;
+	private long windowStart, overlayTime;
+	private String[] overlay;
+
+	/**
+	 * Constructor; dumps to the file named by the metrics.file system property, if there is one
+	 */
+	public FrameMetrics() {
+		this(System.getProperty("metrics.file"));
+	}
+
+	/**
+	 * Constructor
+	 * @param file - file to append each window's CSV rows to, or null to keep the numbers in memory only
+	 */
+	public FrameMetrics(String file) {
+		this.file = file;
+		for (int i = 0; i < stages.length; i++) {
+			stages[i] = new LatencyHistogram();
+		}
+		this.windowStart = System.nanoTime();
+		this.overlayTime = windowStart - OVERLAY_NANOS;
+		this.lastAllocated = allocatedBytes();
+		if (file != null) {
+			try (PrintWriter out = new PrintWriter(new FileWriter(file, true))) {
+				out.println("time,stage,count,mean_us,p50_us,p99_us,p999_us,max_us,frames,rays_per_frame,"
+						+ "cells_per_frame,alloc_bytes_per_frame");
+			} catch (IOException e) {
+				System.err.println("Can't write frame metrics to " + file + ": " + e);
+			}
+		}
+	}
+
+	/**
+	 * Records how long one stage took
+	 * @param stage - UPDATE, DRAW, RAYS or PRESENT
+	 * @param nanos - time taken, in nanoseconds
+	 */
+	public void record(int stage, long nanos) {
+		stages[stage].record(nanos);
+	}
+
+	/**
+	 * Counts the rays cast for a frame
+	 * @param rays - number of rays
+	 * @param cells - number of grid cells the rays stepped through
+	 */
+	public void countRays(long rays, long cells) {
+		this.rays += rays;
+		this.cells += cells;
+	}
+
+	/**
+	 * Ends a frame: counts what the game thread allocated since the last one, and rolls the window over (and
+	 * dumps it) once it's old enough. Must be called from the game thread
+	 */
+	public void frameDone() {
+		frames++;
+		long now = allocatedBytes();
+		allocated += now - lastAllocated;
+		lastAllocated = now;
+		long time = System.nanoTime();
+		if (time - windowStart >= WINDOW_NANOS) {
+			if (file != null) {
+				dump();
+			}
+			for (LatencyHistogram stage: stages) {
+				stage.reset();
+			}
+			frames = 0;
+			rays = 0;
+			cells = 0;
+			allocated = 0;
+			windowStart = time;
+		}
+	}
+
+	/**
+	 * Lines of text for the in-game overlay, worked out again at most twice a second
+	 * @return - one line per stage plus one for the counters
+	 */
+	public String[] getOverlay() {
+		long time = System.nanoTime();
+		if (time - overlayTime >= OVERLAY_NANOS) {
+			overlayTime = time;
+			String[] lines = new String[STAGES.length + 1];
+			for (int i = 0; i < STAGES.length; i++) {
+				LatencyHistogram stage = stages[i];
+				lines[i] = String.format(Locale.ROOT, "%-8s p50 %7.2f  p99 %7.2f  p999 %7.2f  max %7.2f ms", STAGES[i],
+						stage.percentile(.5) / 1e6, stage.percentile(.99) / 1e6, stage.percentile(.999) / 1e6,
+						stage.getMax() / 1e6);
+			}
+			lines[STAGES.length] = String.format(Locale.ROOT, "%d frames  %d rays  %d cells  %d B alloc per frame",
+					frames, perFrame(rays), perFrame(cells), perFrame(allocated));
+			overlay = lines;
+		}
+		return overlay;
+	}
+
+	/**
+	 * Appends one CSV row per stage for the current window
+	 */
+	private void dump() {
+		try (PrintWriter out = new PrintWriter(new FileWriter(file, true))) {
+			long time = System.currentTimeMillis();
+			for (int i = 0; i < STAGES.length; i++) {
+				LatencyHistogram stage = stages[i];
+				out.println(String.format(Locale.ROOT, "%d,%s,%d,%.3f,%.3f,%.3f,%.3f,%.3f,%d,%d,%d,%d", time,
+						STAGES[i], stage.getCount(), stage.getMean() / 1e3, stage.percentile(.5) / 1e3,
+						stage.percentile(.99) / 1e3, stage.percentile(.999) / 1e3, stage.getMax() / 1e3, frames,
+						perFrame(rays), perFrame(cells), perFrame(allocated)));
+			}
+		} catch (IOException e) {
+			System.err.println("Can't write frame metrics to " + file + ": " + e);
+		}
+	}
+
+	/**
+	 * @param total - total over the window
+	 * @return - average per frame in the window
+	 */
+	private long perFrame(long total) {
+		return (frames == 0) ? 0 : total / frames;
+	}
+
+	/**
+	 * @return - bytes allocated so far by the current thread, or 0 if the JVM can't tell
+	 */
+	private static long allocatedBytes() {
+		if (THREADS == null) {
+			return 0;
+		}
+		return THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	/**
+	 * @return - the JVM's thread bean if it supports counting allocations, else null
+	 */
+	private static com.sun.management.ThreadMXBean threadBean() {
+		try {
+			java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+			if (bean instanceof com.sun.management.ThreadMXBean) {
+				com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean)bean;
+				if (threads.isThreadAllocatedMemorySupported()) {
+					threads.setThreadAllocatedMemoryEnabled(true);
+					return threads;
+				}
+			}
+		} catch (LinkageError | UnsupportedOperationException e) {}
+		return null;
+	}
+}
@@ -4,7 +4,7 @@
  * @author Robin A. and Zach D.
  */
 import java.awt.*;
-import java.util.Stack;
+import java.awt.image.BufferStrategy;
 import javax.sound.sampled.AudioSystem;
 import javax.sound.sampled.Clip;
 import javax.swing.JFrame;
@@ -13,7 +13,7 @@ import java.io.*;
 public class Game extends JFrame implements Runnable {
 
 	private static final long serialVersionUID = 1L;
-	private boolean isRunning, isTitle, isShowMap, isBot;
+	private boolean isRunning, isTitle, isShowMap, isBot, isFastForward;
 	private Point playerStart;
 	private Title titleScreen;
 	protected Camera raycast;
@@ -21,12 +21,18 @@ public class Game extends JFrame implements Runnable {
 	protected Player player;
 	protected Bot bot;
 	protected Portal goal;
-	protected int[][] map;
-	protected Stack<Point> path;
+	protected Grid map;
+	protected PathSolver solver;
+	private BufferStrategy strategy;
 
 	private final int WIDTH = 1024;
 	private final int HEIGHT = 768;
 	private final int FPS = 60;
+	private final int UPDATE_RATE = 60;
+	private final int MAX_UPDATES = 5;
+	private final long FRAME_NANOS = 1000000000L / FPS;
+	private final long UPDATE_NANOS = 1000000000L / UPDATE_RATE;
+	private final long FAST_FORWARD_NANOS = 100000000L;
 
 	/**
 	 * Creates a new Maze object to generate a new map
@@ -34,6 +40,8 @@ public class Game extends JFrame implements Runnable {
 	 * @param y - height of map
 	 */
 	protected void newMap(int x, int y) {
+		GameStateEvent event = new GameStateEvent();
+		event.begin();
 		maze = new Maze(x, y);
 		this.map = maze.getMap();
 		this.playerStart = maze.getStart();
@@ -41,16 +49,35 @@ public class Game extends JFrame implements Runnable {
 		this.goal = new Portal(maze.getGoal(), this, player);
 		raycast.setMap(map, goal);
 		this.setShowMap(false);
+		stateChanged(event, "new map");
 	}
 	
 	/**
-	 * Creates a new bot using the path of the current maze
+	 * Creates a new bot at the start of the current maze
 	 */
 	protected void newBot() {
-		path = maze.shortestPath();
-		bot = new Bot(path, this, raycast);
+		GameStateEvent event = new GameStateEvent();
+		event.begin();
+		bot = new Bot(maze, maze.getStart(), this, raycast);
 		this.goal = new Portal(maze.getGoal(), this, bot);
 		this.setBot(true);
+		stateChanged(event, "new bot");
+	}
+	
+	/**
+	 * Commits a game state event for Flight Recorder, if one is being recorded
+	 * @param event - event begun when the change started
+	 * @param state - name of the state the game changed to
+	 */
+	private void stateChanged(GameStateEvent event, String state) {
+		if (event.shouldCommit()) {
+			event.state = state;
+			if (map != null) {
+				event.width = map.getWidth();
+				event.height = map.getHeight();
+			}
+			event.commit();
+		}
 	}
 	
 	/**
@@ -67,7 +94,9 @@ public class Game extends JFrame implements Runnable {
 		this.add(titleScreen);
 		this.raycast = new Camera(this, WIDTH, HEIGHT);
 		this.add(raycast);
+		raycast.setFrameBudget(FRAME_NANOS);
 		this.map = null; 		
+		this.solver = new JumpPointSolver();
 		this.isBot = false;
 		setShowMap(false);
 		setIsTitle(true);
@@ -75,33 +104,94 @@ public class Game extends JFrame implements Runnable {
 		start();
 	}
 
-	/* Game loop that causes updates to only happen variant on the FPS set; draws screen, keeps count of time, and 
-	 * updates positions of player and how close player is to the goal
+	/* Fixed timestep game loop: real time piles up in an accumulator and is spent in fixed updates of
+	 * 1/UPDATE_RATE of a second each, so the actor always gets the same amount of time per update no matter how
+	 * long drawing takes. Frames are drawn on their own schedule of FPS per second. If the loop falls more than
+	 * MAX_UPDATES behind (a slow frame, or a dialog holding it up), the extra time is dropped instead of being
+	 * caught up all at once. In fast-forward, bot updates run back to back without drawing
 	 * (non-Javadoc)
 	 * @see java.lang.Runnable#run()
 	 */
 	public void run() {
 		init();
 		playSong();
+		long previous = System.nanoTime();
+		long lag = 0;
+		long nextFrame = previous;
 		while(isRunning) {
-			long frameTime = System.currentTimeMillis();
-			frameTime = (1000 / FPS) - (System.currentTimeMillis() - frameTime);
-			if (isBot) {
-				bot.update();
-				raycast.draw();
-				bot.addTime(frameTime*1.3);
-				goal.update();
-			} else if (!isTitle) {
-				player.update();
+			long now = System.nanoTime();
+			lag += now - previous;
+			previous = now;
+			if (!isBot && isTitle) {
+				lag = 0;
+				pause(FRAME_NANOS);
+				continue;
+			}
+			if (isFastForward && isBot) {
+				fastForward();
+				previous = System.nanoTime();
+				lag = 0;
+				continue;
+			}
+			int updates = 0;
+			while (lag >= UPDATE_NANOS && updates < MAX_UPDATES && (isBot || !isTitle)) {
+				update();
+				lag -= UPDATE_NANOS;
+				updates++;
+			}
+			if (lag >= UPDATE_NANOS) {
+				lag %= UPDATE_NANOS;
+			}
+			now = System.nanoTime();
+			if (now - nextFrame >= 0 && (isBot || !isTitle)) {
 				raycast.draw();
-				player.addTime(frameTime*1.3);
-				goal.update();
-			} 
-			if (frameTime > 0) {
-				try {
-					Thread.sleep(frameTime);
-				} catch (Exception e) {}
+				nextFrame += FRAME_NANOS;
+				if (now - nextFrame >= 0) {
+					nextFrame = now + FRAME_NANOS;
+				}
 			}
+			pause(Math.min(UPDATE_NANOS - lag - (System.nanoTime() - previous), nextFrame - System.nanoTime()));
+		}
+	}
+	
+	/**
+	 * One fixed update of whichever actor is running: moves it, gives it one update's worth of time and checks
+	 * whether it reached the goal. The time it takes goes into the Camera's frame metrics
+	 */
+	private void update() {
+		long start = System.nanoTime();
+		if (isBot) {
+			bot.update();
+			bot.addTime(1000.0 / UPDATE_RATE);
+			goal.update();
+		} else if (!isTitle) {
+			player.update();
+			player.addTime(1000.0 / UPDATE_RATE);
+			goal.update();
+		}
+		raycast.getMetrics().record(FrameMetrics.UPDATE, System.nanoTime() - start);
+	}
+	
+	/**
+	 * Runs bot updates as fast as they'll go for a short slice of real time, without drawing, so the loop can
+	 * still notice keys and the end of the run between slices
+	 */
+	private void fastForward() {
+		long end = System.nanoTime() + FAST_FORWARD_NANOS;
+		while (isFastForward && isBot && System.nanoTime() - end < 0) {
+			update();
+		}
+	}
+	
+	/**
+	 * Sleeps for a while if there's at least a millisecond to spare
+	 * @param nanos - nanoseconds to sleep
+	 */
+	private void pause(long nanos) {
+		if (nanos >= 1000000) {
+			try {
+				Thread.sleep(nanos / 1000000);
+			} catch (Exception e) {}
 		}
 	}
 	
@@ -162,6 +252,22 @@ public class Game extends JFrame implements Runnable {
 	protected boolean isBot() {
 		return isBot;
 	}
+	/**
+	 * Returns whether bot runs are being fast-forwarded
+	 * @return - isFastForward
+	 */
+	protected boolean isFastForward() {
+		return isFastForward;
+	}
+	
+	/**
+	 * Turns fast-forward on/off; while it's on, a running bot is updated as fast as possible and not drawn
+	 * @param isFastForward - boolean that toggles fast-forward on/off
+	 */
+	protected void setFastForward(boolean isFastForward) {
+		this.isFastForward = isFastForward;
+	}
+	
 	/**
 	 * Sets the 2D map in game on/off 
 	 * @param isMap - boolean that toggles 2D map on/off
@@ -183,8 +289,12 @@ public class Game extends JFrame implements Runnable {
 	 * @param isTitle - boolean that toggles the title screen on/off
 	 */
 	protected void setIsTitle(boolean isTitle) {
+		GameStateEvent event = new GameStateEvent();
+		event.begin();
 		this.isTitle = isTitle;
 		if (isTitle) {
+			isFastForward = false;
+			stopActiveRendering();
 			titleScreen.setActive(true);
 			raycast.setEnabled(false);
 			raycast.setVisible(false);
@@ -196,7 +306,51 @@ public class Game extends JFrame implements Runnable {
 			raycast.setVisible(true);
 			titleScreen.transferFocus();
 			raycast.requestFocus();
+			startActiveRendering();
+		}
+		stateChanged(event, isTitle ? "title" : "playing");
+	}
+	
+	/**
+	 * Switches the frame to active rendering for the game: Swing stops repainting it, and the Camera presents
+	 * each frame through a page flipped (or, if the screen can't flip, blitted) BufferStrategy whose buffers
+	 * are accelerated images in the screen's own format. Does nothing if there's no screen, in which case
+	 * the Camera keeps drawing through getGraphics
+	 */
+	private void startActiveRendering() {
+		if (strategy != null || GraphicsEnvironment.isHeadless() || !isDisplayable()) {
+			return;
+		}
+		setIgnoreRepaint(true);
+		raycast.setIgnoreRepaint(true);
+		try {
+			createBufferStrategy(2, new BufferCapabilities(new ImageCapabilities(true), new ImageCapabilities(true),
+					BufferCapabilities.FlipContents.UNDEFINED));
+		} catch (AWTException e) {
+			createBufferStrategy(2);
 		}
+		strategy = getBufferStrategy();
+	}
+	
+	/**
+	 * Hands the frame back to Swing so the title screen paints normally again
+	 */
+	private void stopActiveRendering() {
+		if (strategy == null) {
+			return;
+		}
+		strategy.dispose();
+		strategy = null;
+		setIgnoreRepaint(false);
+		raycast.setIgnoreRepaint(false);
+		repaint();
+	}
+	
+	/**
+	 * @return - BufferStrategy to present game frames through, or null if the Camera should paint them itself
+	 */
+	protected BufferStrategy getStrategy() {
+		return strategy;
 	}
 	
 	public static void main(String[] args) {
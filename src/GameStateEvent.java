@@ -0,0 +1,25 @@
+/**
+ * Flight Recorder event for the game changing state: going to or leaving the title screen, or starting a
+ * new map or bot run. New maps last as long as it takes to generate them
+ * @author Robin A. and Zach D.
+ */
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("maze.GameState")
+@Label("Game State")
+@Category("Maze Game")
+@Description("The game switching between the title screen, new maps and bot runs")
+public class GameStateEvent extends jdk.jfr.Event {
+
+	@Label("State")
+	String state;
+
+	@Label("Maze Width")
+	int width;
+
+	@Label("Maze Height")
+	int height;
+}
@@ -0,0 +1,127 @@
+/**
+ * Compact map of walls and open cells, stored as one bit per cell in a single flat array instead of an int
+ * per cell spread over one array per row. Cells are laid out column by column (cell = x * height + y), the
+ * same order the maze has always been looped over
+ * @author Robin A. and Zach D.
+ */
+import java.util.Arrays;
+
+public class Grid {
+
+	private final int width;
+	private final int height;
+	private final long[] walls;
+	private int version;
+
+	/**
+	 * Constructor to create a grid where every cell starts as a wall
+	 * @param width - number of cells across
+	 * @param height - number of cells down
+	 */
+	public Grid(int width, int height) {
+		this.width = width;
+		this.height = height;
+		this.walls = new long[(int)(((long)width * height + 63) >>> 6)];
+		Arrays.fill(walls, -1L);
+	}
+
+	/**
+	 * Checks if a cell is a wall; no bounds checks, so callers must stay inside the grid
+	 * @param x - X index of cell
+	 * @param y - Y index of cell
+	 * @return - whether the cell is a wall
+	 */
+	public boolean isWall(int x, int y) {
+		int cell = x * height + y;
+		return (walls[cell >>> 6] & (1L << cell)) != 0;
+	}
+
+	/**
+	 * Checks if a cell is a wall by its cell number
+	 * @param cell - cell number (x * height + y)
+	 * @return - whether the cell is a wall
+	 */
+	public boolean isWall(int cell) {
+		return (walls[cell >>> 6] & (1L << cell)) != 0;
+	}
+
+	/**
+	 * Turns a cell into a wall or opens it up
+	 * @param x - X index of cell
+	 * @param y - Y index of cell
+	 * @param wall - true for wall, false for open
+	 */
+	public void setWall(int x, int y, boolean wall) {
+		int cell = x * height + y;
+		if (wall) {
+			walls[cell >>> 6] |= 1L << cell;
+		} else {
+			walls[cell >>> 6] &= ~(1L << cell);
+		}
+		version++;
+	}
+
+	/**
+	 * @return - number that changes every time a cell is set, so anything built from the grid can tell when
+	 * it's out of date
+	 */
+	public int getVersion() {
+		return version;
+	}
+
+	/**
+	 * Boolean that makes sure a cell is inside the grid
+	 * @param x - X index of cell
+	 * @param y - Y index of cell
+	 * @return - whether the cell is inside the grid
+	 */
+	public boolean inBounds(int x, int y) {
+		return x >= 0 && x < width && y >= 0 && y < height;
+	}
+
+	/**
+	 * @param x - X index of cell
+	 * @param y - Y index of cell
+	 * @return - cell number for the cell at x, y
+	 */
+	public int cell(int x, int y) {
+		return x * height + y;
+	}
+
+	/**
+	 * @param cell - cell number
+	 * @return - X index of the cell
+	 */
+	public int cellX(int cell) {
+		return cell / height;
+	}
+
+	/**
+	 * @param cell - cell number
+	 * @return - Y index of the cell
+	 */
+	public int cellY(int cell) {
+		return cell % height;
+	}
+
+	/**
+	 * @return - number of cells in the grid
+	 */
+	public int size() {
+		return width * height;
+	}
+
+	/**
+	 * @return - number of cells across
+	 */
+	public int getWidth() {
+		return width;
+	}
+
+	/**
+	 * @return - number of cells down
+	 */
+	public int getHeight() {
+		return height;
+	}
+}
@@ -0,0 +1,60 @@
+/**
+ * Ray engine that steps the ray from one grid cell to the next (DDA), so every cell the ray passes through is
+ * checked exactly once and the distance to the wall is exact instead of rounded to the next .1 step
+ * @author Robin A. and Zach D.
+ */
+
+public class GridRayEngine implements RayEngine {
+
+	private static final int CELL = 32;
+
+	/* Walks the ray cell by cell, always crossing whichever grid line (vertical or horizontal) is closer,
+	 * until the cell it enters is a wall; the distance to it is then taken from the face's grid line, not the
+	 * distances added up on the way, so it doesn't pick up rounding from every cell crossed
+	 * (non-Javadoc)
+	 * @see RayEngine#cast(Grid, double, double, double, double, RayHit)
+	 */
+	@Override
+	public void cast(Grid map, double x, double y, double sin, double cos, RayHit hit) {
+		hit.reset();
+		int cellX = (int)x / CELL;
+		int cellY = (int)y / CELL;
+		double deltaX = (sin == 0) ? Double.POSITIVE_INFINITY : Math.abs(CELL / sin);
+		double deltaY = (cos == 0) ? Double.POSITIVE_INFINITY : Math.abs(CELL / cos);
+		int stepX, stepY;
+		double sideX, sideY;
+		if (sin < 0) {
+			stepX = -1;
+			sideX = (x - cellX*CELL) / -sin;
+		} else {
+			stepX = 1;
+			sideX = ((cellX+1)*CELL - x) / sin;
+		}
+		if (cos < 0) {
+			stepY = -1;
+			sideY = (y - cellY*CELL) / -cos;
+		} else {
+			stepY = 1;
+			sideY = ((cellY+1)*CELL - y) / cos;
+		}
+		Compass face;
+		int steps = 0;
+		do {
+			steps++;
+			if (sideX < sideY) {
+				sideX += deltaX;
+				cellX += stepX;
+				face = (stepX > 0) ? Compass.W : Compass.E;
+			} else {
+				sideY += deltaY;
+				cellY += stepY;
+				face = (stepY > 0) ? Compass.N : Compass.S;
+			}
+		} while (!map.isWall(cellX, cellY));
+		hit.steps = steps;
+		hit.distance = RayEngine.faceDistance(cellX, cellY, face, x, y, sin, cos);
+		hit.cellX = cellX;
+		hit.cellY = cellY;
+		hit.face = face;
+	}
+}
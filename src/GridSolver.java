@@ -0,0 +1,116 @@
+/**
+ * Base for the PathSolvers that search the Grid directly. Holds the scratch arrays they share, all indexed by 
+ * cell number and reused between solves: a stamp per cell marks which cells the current solve has reached (so 
+ * nothing has to be cleared between solves), alongside the cell each was reached from. The outer edge of a 
+ * maze is always wall, so an open cell's neighbours are never off the grid
+ * @author Robin A. and Zach D.
+ */
+import java.util.Arrays;
+
+public abstract class GridSolver implements PathSolver {
+
+	protected Grid map;
+	protected final int[] steps = new int[4];
+	protected int[] prev;
+	protected int[] mark;
+	protected int stamp;
+	protected int expanded;
+
+	/* Prepares the scratch arrays for the grid and runs the search
+	 * (non-Javadoc)
+	 * @see PathSolver#solve(Grid, int, int)
+	 */
+	@Override
+	public Route solve(Grid map, int start, int goal) {
+		prepare(map);
+		expanded = 0;
+		if (start == goal) {
+			return new Route(map, new int[] {start}, 0);
+		}
+		return new Route(map, search(start, goal), expanded);
+	}
+
+	/**
+	 * Searches for the route between two different cells
+	 * @param start - cell to start at
+	 * @param goal - cell to reach
+	 * @return - cell numbers from start to goal, or an empty array if the goal can't be reached
+	 */
+	protected abstract int[] search(int start, int goal);
+
+	/**
+	 * Sets up the scratch arrays for a new solve on the given grid
+	 * @param map - Grid about to be searched
+	 */
+	protected void prepare(Grid map) {
+		if (this.map != map) {
+			this.map = map;
+			Compass[] direction = Compass.values();
+			for (int i = 0; i < direction.length; i++) {
+				steps[i] = direction[i].mapX * map.getHeight() + direction[i].mapY;
+			}
+		}
+		if (prev == null || prev.length != map.size()) {
+			prev = new int[map.size()];
+			mark = new int[map.size()];
+			stamp = 0;
+			resize(map.size());
+		}
+		if (++stamp == Integer.MAX_VALUE) {
+			Arrays.fill(mark, 0);
+			stamp = 1;
+		}
+	}
+
+	/**
+	 * Lets solvers with scratch arrays of their own size them for a new grid
+	 * @param cells - number of cells in the grid
+	 */
+	protected void resize(int cells) {}
+
+	/**
+	 * @param cell - cell to check
+	 * @return - whether the current solve has reached the cell
+	 */
+	protected boolean seen(int cell) {
+		return mark[cell] == stamp;
+	}
+
+	/**
+	 * Marks a cell as reached by the current solve
+	 * @param cell - cell reached
+	 * @param from - cell it was reached from
+	 */
+	protected void visit(int cell, int from) {
+		mark[cell] = stamp;
+		prev[cell] = from;
+	}
+
+	/**
+	 * Follows the cells each cell was reached from, back from the end to the start
+	 * @param start - cell the search started at
+	 * @param end - cell to trace back from
+	 * @return - cell numbers from start to end
+	 */
+	protected int[] trace(int start, int end) {
+		int length = 1;
+		for (int cell = end; cell != start; cell = prev[cell]) {
+			length++;
+		}
+		int[] route = new int[length];
+		for (int cell = end; length > 0; cell = prev[cell]) {
+			route[--length] = cell;
+		}
+		return route;
+	}
+
+	/**
+	 * Manhattan distance between two cells, the heuristic for the A* based solvers
+	 * @param a - first cell
+	 * @param b - second cell
+	 * @return - number of moves between the cells if there were no walls
+	 */
+	protected int manhattan(int a, int b) {
+		return Math.abs(map.cellX(a) - map.cellX(b)) + Math.abs(map.cellY(a) - map.cellY(b));
+	}
+}
@@ -0,0 +1,455 @@
+/**
+ * HPA* style solver for very large mazes. The Grid is split into 16x16 clusters; wherever open cells line up
+ * across the border between two clusters, the middle of each run of them becomes an entrance, and the moves
+ * between every pair of entrances inside a cluster are worked out once with a breadth-first search that stays
+ * in the cluster. Queries search that abstract graph with A* and only search cells again inside the clusters
+ * the route goes through. Clusters are built the first time a query touches them and are rebuilt only after
+ * a cell in them (or on their border) changes, so the solver is meant to be kept per maze, like Maze does.
+ * Routes always follow open cells but can be a little longer than the shortest one once a maze has loops
+ * @author Robin A. and Zach D.
+ */
+import java.util.Arrays;
+
+public class HierarchicalSolver implements PathSolver {
+
+	private static final int SHIFT = 4;
+	private static final int CLUSTER = 1 << SHIFT;
+	private static final int MAX_NODES = 4 * ((CLUSTER + 1) / 2);
+	private final Grid map;
+	private final int height;
+	private final int clustersX, clustersY;
+	private final int[][] borderE, borderS;
+	private final int[][] nodeCells, nodeDist;
+	private final int[] sideCount;
+	private final long[] dirty;
+	private int version;
+	private final int[] localDist = new int[CLUSTER * CLUSTER], localPrev = new int[CLUSTER * CLUSTER];
+	private final int[] startDist = new int[CLUSTER * CLUSTER], startPrev = new int[CLUSTER * CLUSTER];
+	private final int[] goalDist = new int[CLUSTER * CLUSTER], goalPrev = new int[CLUSTER * CLUSTER];
+	private final int[] queue = new int[CLUSTER * CLUSTER];
+	private final int[] g, prev, mark;
+	private int stamp;
+	private final LongHeap open = new LongHeap();
+	private int[] route = new int[256];
+	private int routeLength;
+
+	/**
+	 * Constructor; no clusters are built until a query needs them
+	 * @param map - Grid to solve on
+	 */
+	public HierarchicalSolver(Grid map) {
+		this.map = map;
+		this.height = map.getHeight();
+		this.clustersX = (map.getWidth() + CLUSTER - 1) >> SHIFT;
+		this.clustersY = (map.getHeight() + CLUSTER - 1) >> SHIFT;
+		int clusters = clustersX * clustersY;
+		this.borderE = new int[clusters][];
+		this.borderS = new int[clusters][];
+		this.nodeCells = new int[clusters][];
+		this.nodeDist = new int[clusters][];
+		this.sideCount = new int[clusters * 4];
+		this.dirty = new long[(clusters + 63) >>> 6];
+		Arrays.fill(dirty, -1L);
+		this.version = map.getVersion();
+		this.g = new int[clusters * MAX_NODES];
+		this.prev = new int[clusters * MAX_NODES];
+		this.mark = new int[clusters * MAX_NODES];
+	}
+
+	/**
+	 * Marks the cluster holding a changed cell for rebuilding, along with the cluster across the border if the
+	 * cell is on the edge of its cluster
+	 * @param x - X index of the cell that changed
+	 * @param y - Y index of the cell that changed
+	 */
+	public void invalidate(int x, int y) {
+		int cx = x >> SHIFT, cy = y >> SHIFT;
+		setDirty(cx, cy);
+		if ((x & (CLUSTER-1)) == 0) {
+			setDirty(cx - 1, cy);
+		}
+		if ((x & (CLUSTER-1)) == CLUSTER-1) {
+			setDirty(cx + 1, cy);
+		}
+		if ((y & (CLUSTER-1)) == 0) {
+			setDirty(cx, cy - 1);
+		}
+		if ((y & (CLUSTER-1)) == CLUSTER-1) {
+			setDirty(cx, cy + 1);
+		}
+		version = map.getVersion();
+	}
+
+	/* Searches the entrances with A*, then fills in the cells between them one cluster at a time
+	 * (non-Javadoc)
+	 * @see PathSolver#solve(Grid, int, int)
+	 */
+	@Override
+	public Route solve(Grid map, int start, int goal) {
+		if (map != this.map) {
+			throw new IllegalArgumentException("HierarchicalSolver can only solve the Grid it was built for");
+		}
+		if (map.getVersion() != version) {
+			Arrays.fill(dirty, -1L);
+			version = map.getVersion();
+		}
+		int startCluster = clusterOf(start), goalCluster = clusterOf(goal);
+		ensure(startCluster);
+		ensure(goalCluster);
+		localSearch(startCluster, start, startDist, startPrev);
+		localSearch(goalCluster, goal, goalDist, goalPrev);
+		int best = Integer.MAX_VALUE, bestEnd = -1;
+		if (startCluster == goalCluster && startDist[local(startCluster, goal)] >= 0) {
+			best = startDist[local(startCluster, goal)];
+		}
+		if (++stamp == Integer.MAX_VALUE) {
+			Arrays.fill(mark, 0);
+			stamp = 1;
+		}
+		open.clear();
+		int[] cells = nodeCells[startCluster];
+		for (int i = 0; i < cells.length; i++) {
+			int cost = startDist[local(startCluster, cells[i])];
+			if (cost >= 0) {
+				int node = startCluster * MAX_NODES + i;
+				mark[node] = stamp;
+				g[node] = cost;
+				prev[node] = -1;
+				open.push(LongHeap.entry(cost + manhattan(cells[i], goal), node));
+			}
+		}
+		int expanded = 0;
+		while (!open.isEmpty()) {
+			long entry = open.pop();
+			if (LongHeap.priority(entry) >= best) {
+				break;
+			}
+			int node = LongHeap.node(entry);
+			int cluster = node / MAX_NODES, index = node % MAX_NODES;
+			int cost = g[node];
+			if (LongHeap.priority(entry) > cost + manhattan(nodeCells[cluster][index], goal)) {
+				continue;
+			}
+			expanded++;
+			if (cluster == goalCluster) {
+				int rest = goalDist[local(goalCluster, nodeCells[cluster][index])];
+				if (rest >= 0 && cost + rest < best) {
+					best = cost + rest;
+					bestEnd = node;
+				}
+			}
+			int count = nodeCells[cluster].length;
+			for (int j = 0; j < count; j++) {
+				int step = nodeDist[cluster][index*count + j];
+				if (step >= 0 && j != index) {
+					relax(cluster * MAX_NODES + j, node, cost + step, goal);
+				}
+			}
+			relax(partner(cluster, index), node, cost + 1, goal);
+		}
+		if (best == Integer.MAX_VALUE) {
+			return new Route(map, new int[0], expanded);
+		}
+		routeLength = 0;
+		if (bestEnd < 0) {
+			appendPath(startPrev, startCluster, goal);
+		} else {
+			appendChain(bestEnd, startCluster);
+			int cell = nodeCells[goalCluster][bestEnd % MAX_NODES];
+			while (cell != goal) {
+				cell = cellOf(goalCluster, goalPrev[local(goalCluster, cell)]);
+				add(cell);
+			}
+		}
+		return new Route(map, Arrays.copyOf(route, routeLength), expanded);
+	}
+
+	/**
+	 * Lowers the cost of reaching an entrance if this way is cheaper
+	 * @param node - entrance to reach, or -1 if there's none
+	 * @param from - entrance it's reached from
+	 * @param cost - moves from the start through from
+	 * @param goal - cell being searched for
+	 */
+	private void relax(int node, int from, int cost, int goal) {
+		if (node >= 0 && (mark[node] != stamp || cost < g[node])) {
+			mark[node] = stamp;
+			g[node] = cost;
+			prev[node] = from;
+			open.push(LongHeap.entry(cost + manhattan(nodeCells[node / MAX_NODES][node % MAX_NODES], goal), node));
+		}
+	}
+
+	/**
+	 * Writes the cells from the start up to an entrance, searching again inside each cluster along the way
+	 * @param end - last entrance on the route
+	 * @param startCluster - cluster holding the start
+	 */
+	private void appendChain(int end, int startCluster) {
+		int count = 0;
+		for (int node = end; node >= 0; node = prev[node]) {
+			count++;
+		}
+		int[] chain = new int[count];
+		for (int node = end; node >= 0; node = prev[node]) {
+			chain[--count] = node;
+		}
+		appendPath(startPrev, startCluster, nodeCells[startCluster][chain[0] % MAX_NODES]);
+		for (int i = 1; i < chain.length; i++) {
+			int from = nodeCells[chain[i-1] / MAX_NODES][chain[i-1] % MAX_NODES];
+			int cluster = chain[i] / MAX_NODES;
+			int to = nodeCells[cluster][chain[i] % MAX_NODES];
+			if (cluster != chain[i-1] / MAX_NODES) {
+				add(to);
+			} else {
+				localSearch(cluster, from, localDist, localPrev);
+				appendPath(localPrev, cluster, to);
+			}
+		}
+	}
+
+	/**
+	 * Writes the cells of a path found by a local search, from its source to the given cell. The source itself
+	 * is written only if nothing has been written yet
+	 * @param parent - parent array of the local search
+	 * @param cluster - cluster the search was done in
+	 * @param to - cell to end at
+	 */
+	private void appendPath(int[] parent, int cluster, int to) {
+		int count = 0;
+		for (int index = local(cluster, to); index >= 0; index = parent[index]) {
+			count++;
+		}
+		int skip = (routeLength == 0) ? 0 : 1;
+		if (routeLength + count > route.length) {
+			route = Arrays.copyOf(route, Math.max(route.length * 2, routeLength + count));
+		}
+		int end = routeLength + count - 1 - skip;
+		for (int index = local(cluster, to); end >= routeLength; index = parent[index]) {
+			route[end--] = cellOf(cluster, index);
+		}
+		routeLength += count - skip;
+	}
+
+	/**
+	 * Adds one cell to the end of the route being built
+	 * @param cell - cell number to add
+	 */
+	private void add(int cell) {
+		if (routeLength == route.length) {
+			route = Arrays.copyOf(route, routeLength * 2);
+		}
+		route[routeLength++] = cell;
+	}
+
+	/**
+	 * Finds the entrance on the other side of the border from an entrance. Entrances are listed per cluster as
+	 * its west, north, east then south border, so the partner's index follows from the counts of each side
+	 * @param cluster - cluster of the entrance
+	 * @param index - index of the entrance in its cluster
+	 * @return - node number of the partner entrance
+	 */
+	private int partner(int cluster, int index) {
+		int west = sideCount[cluster*4], north = sideCount[cluster*4 + 1], east = sideCount[cluster*4 + 2];
+		int other;
+		if (index < west) {
+			other = cluster - clustersY;
+			ensure(other);
+			index += sideCount[other*4] + sideCount[other*4 + 1];
+		} else if (index < west + north) {
+			other = cluster - 1;
+			ensure(other);
+			index += sideCount[other*4] + sideCount[other*4 + 1] + sideCount[other*4 + 2] - west;
+		} else if (index < west + north + east) {
+			other = cluster + clustersY;
+			ensure(other);
+			index -= west + north;
+		} else {
+			other = cluster + 1;
+			ensure(other);
+			index += sideCount[other*4] - west - north - east;
+		}
+		return other * MAX_NODES + index;
+	}
+
+	/**
+	 * Builds a cluster if it's never been built or has been marked dirty: finds the entrances on its four
+	 * borders, then the moves between every pair of them without leaving the cluster
+	 * @param cluster - cluster to build
+	 */
+	private void ensure(int cluster) {
+		if ((dirty[cluster >>> 6] & (1L << cluster)) == 0) {
+			return;
+		}
+		dirty[cluster >>> 6] &= ~(1L << cluster);
+		int cx = cluster / clustersY, cy = cluster % clustersY;
+		borderE[cluster] = (cx + 1 < clustersX) ? entrances(cluster, true) : new int[0];
+		borderS[cluster] = (cy + 1 < clustersY) ? entrances(cluster, false) : new int[0];
+		int[] west = (cx > 0) ? entrances(cluster - clustersY, true) : new int[0];
+		int[] north = (cy > 0) ? entrances(cluster - 1, false) : new int[0];
+		if (cx > 0) {
+			borderE[cluster - clustersY] = west;
+		}
+		if (cy > 0) {
+			borderS[cluster - 1] = north;
+		}
+		int count = west.length + north.length + borderE[cluster].length + borderS[cluster].length;
+		int[] cells = new int[count];
+		int index = 0;
+		for (int cell: west) {
+			cells[index++] = cell + height;
+		}
+		for (int cell: north) {
+			cells[index++] = cell + 1;
+		}
+		for (int cell: borderE[cluster]) {
+			cells[index++] = cell;
+		}
+		for (int cell: borderS[cluster]) {
+			cells[index++] = cell;
+		}
+		sideCount[cluster*4] = west.length;
+		sideCount[cluster*4 + 1] = north.length;
+		sideCount[cluster*4 + 2] = borderE[cluster].length;
+		sideCount[cluster*4 + 3] = borderS[cluster].length;
+		int[] dist = new int[count * count];
+		for (int i = 0; i < count; i++) {
+			localSearch(cluster, cells[i], localDist, localPrev);
+			for (int j = 0; j < count; j++) {
+				dist[i*count + j] = localDist[local(cluster, cells[j])];
+			}
+		}
+		nodeCells[cluster] = cells;
+		nodeDist[cluster] = dist;
+	}
+
+	/**
+	 * Finds the entrances on a cluster's east or south border: each run of cells that are open on both sides
+	 * of the border gives one entrance, at the middle of the run
+	 * @param cluster - cluster whose border to check
+	 * @param east - true for the east border, false for the south one
+	 * @return - cell numbers of the entrances, on this cluster's side of the border
+	 */
+	private int[] entrances(int cluster, boolean east) {
+		int x0 = (cluster / clustersY) << SHIFT, y0 = (cluster % clustersY) << SHIFT;
+		int across = east ? height : 1;
+		int along = east ? 1 : height;
+		int first = east ? map.cell(x0 + CLUSTER - 1, y0) : map.cell(x0, y0 + CLUSTER - 1);
+		int length = east ? Math.min(CLUSTER, height - y0) : Math.min(CLUSTER, map.getWidth() - x0);
+		int[] found = new int[(length + 1) / 2];
+		int count = 0, run = -1;
+		for (int i = 0; i <= length; i++) {
+			int cell = first + i * along;
+			boolean crossing = i < length && !map.isWall(cell) && !map.isWall(cell + across);
+			if (crossing && run < 0) {
+				run = i;
+			} else if (!crossing && run >= 0) {
+				found[count++] = first + (run + (i - 1 - run) / 2) * along;
+				run = -1;
+			}
+		}
+		return Arrays.copyOf(found, count);
+	}
+
+	/**
+	 * Breadth-first search from one cell that never leaves its cluster
+	 * @param cluster - cluster to search in
+	 * @param from - cell number to start from
+	 * @param dist - filled with moves to each cell of the cluster by local index, -1 if not reached
+	 * @param parent - filled with the local index each cell was reached from, -1 for the start
+	 */
+	private void localSearch(int cluster, int from, int[] dist, int[] parent) {
+		Arrays.fill(dist, -1);
+		int x0 = (cluster / clustersY) << SHIFT, y0 = (cluster % clustersY) << SHIFT;
+		int w = Math.min(CLUSTER, map.getWidth() - x0), h = Math.min(CLUSTER, height - y0);
+		int head = 0, tail = 0;
+		int start = local(cluster, from);
+		dist[start] = 0;
+		parent[start] = -1;
+		queue[tail++] = start;
+		while (head != tail) {
+			int index = queue[head++];
+			int lx = index >> SHIFT, ly = index & (CLUSTER-1);
+			int cell = (x0 + lx) * height + y0 + ly;
+			if (lx > 0 && visit(index, index - CLUSTER, cell - height, dist, parent)) {
+				queue[tail++] = index - CLUSTER;
+			}
+			if (lx + 1 < w && visit(index, index + CLUSTER, cell + height, dist, parent)) {
+				queue[tail++] = index + CLUSTER;
+			}
+			if (ly > 0 && visit(index, index - 1, cell - 1, dist, parent)) {
+				queue[tail++] = index - 1;
+			}
+			if (ly + 1 < h && visit(index, index + 1, cell + 1, dist, parent)) {
+				queue[tail++] = index + 1;
+			}
+		}
+	}
+
+	/**
+	 * Reaches one neighbour during a local search if it's open and not reached yet
+	 * @param from - local index of the cell being searched from
+	 * @param index - local index of the neighbour
+	 * @param cell - cell number of the neighbour
+	 * @param dist - local search distances
+	 * @param parent - local search parents
+	 * @return - whether the neighbour was reached and needs to be queued
+	 */
+	private boolean visit(int from, int index, int cell, int[] dist, int[] parent) {
+		if (dist[index] >= 0 || map.isWall(cell)) {
+			return false;
+		}
+		dist[index] = dist[from] + 1;
+		parent[index] = from;
+		return true;
+	}
+
+	/**
+	 * @param cell - cell number
+	 * @return - number of the cluster the cell is in
+	 */
+	private int clusterOf(int cell) {
+		return (map.cellX(cell) >> SHIFT) * clustersY + (map.cellY(cell) >> SHIFT);
+	}
+
+	/**
+	 * @param cluster - cluster the cell is in
+	 * @param cell - cell number
+	 * @return - index of the cell inside its cluster
+	 */
+	private int local(int cluster, int cell) {
+		int x0 = (cluster / clustersY) << SHIFT, y0 = (cluster % clustersY) << SHIFT;
+		return ((map.cellX(cell) - x0) << SHIFT) | (map.cellY(cell) - y0);
+	}
+
+	/**
+	 * @param cluster - cluster the cell is in
+	 * @param index - index of the cell inside its cluster
+	 * @return - cell number
+	 */
+	private int cellOf(int cluster, int index) {
+		int x0 = (cluster / clustersY) << SHIFT, y0 = (cluster % clustersY) << SHIFT;
+		return (x0 + (index >> SHIFT)) * height + y0 + (index & (CLUSTER-1));
+	}
+
+	/**
+	 * @param cell - cell number
+	 * @param goal - goal cell number
+	 * @return - manhattan distance between them, in cells
+	 */
+	private int manhattan(int cell, int goal) {
+		return Math.abs(map.cellX(cell) - map.cellX(goal)) + Math.abs(map.cellY(cell) - map.cellY(goal));
+	}
+
+	/**
+	 * Marks a cluster for rebuilding if it's inside the grid
+	 * @param cx - cluster column
+	 * @param cy - cluster row
+	 */
+	private void setDirty(int cx, int cy) {
+		if (cx >= 0 && cy >= 0 && cx < clustersX && cy < clustersY) {
+			int cluster = cx * clustersY + cy;
+			dirty[cluster >>> 6] |= 1L << cluster;
+		}
+	}
+}
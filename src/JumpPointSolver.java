@@ -0,0 +1,107 @@
+/**
+ * Jump point search for a grid without diagonal moves. Instead of adding every neighbour to the open list, it
+ * jumps straight along each direction until it reaches the goal or a cell with an opening to either side 
+ * (the only places a shortest route can turn), so the A* search underneath only ever sees those jump points.
+ * In a maze that's mostly junctions and corners, so long corridors cost one expansion instead of one per cell
+ * @author Robin A. and Zach D.
+ */
+
+public class JumpPointSolver extends GridSolver {
+
+	private final LongHeap open = new LongHeap();
+	private int[] cost;
+
+	/* Sizes the cost array alongside the shared ones
+	 * (non-Javadoc)
+	 * @see GridSolver#resize(int)
+	 */
+	@Override
+	protected void resize(int cells) {
+		cost = new int[cells];
+	}
+
+	/* A* over jump points, using the Manhattan distance to the goal as the estimate
+	 * (non-Javadoc)
+	 * @see GridSolver#search(int, int)
+	 */
+	@Override
+	protected int[] search(int start, int goal) {
+		open.clear();
+		visit(start, start);
+		cost[start] = 0;
+		open.push(LongHeap.entry(manhattan(start, goal), start));
+		int height = map.getHeight();
+		while (!open.isEmpty()) {
+			long entry = open.pop();
+			int current = LongHeap.node(entry);
+			if (LongHeap.priority(entry) > cost[current] + manhattan(current, goal)) {
+				continue;
+			}
+			expanded++;
+			if (current == goal) {
+				return expand(start, goal);
+			}
+			int backStep = 0;
+			int parent = prev[current];
+			if (parent != current) {
+				if (map.cellX(parent) == map.cellX(current)) {
+					backStep = (parent < current) ? -1 : 1;
+				} else {
+					backStep = (parent < current) ? -height : height;
+				}
+			}
+			for (int step: steps) {
+				if (step == backStep) {
+					continue;
+				}
+				int side = (step == 1 || step == -1) ? height : 1;
+				int cell = current, moves = 0;
+				boolean found = false;
+				while (!map.isWall(cell + step)) {
+					cell += step;
+					moves++;
+					if (cell == goal || !map.isWall(cell + side) || !map.isWall(cell - side)) {
+						found = true;
+						break;
+					}
+				}
+				if (found) {
+					int nextCost = cost[current] + moves;
+					if (!seen(cell) || nextCost < cost[cell]) {
+						visit(cell, current);
+						cost[cell] = nextCost;
+						open.push(LongHeap.entry(nextCost + manhattan(cell, goal), cell));
+					}
+				}
+			}
+		}
+		return new int[0];
+	}
+
+	/**
+	 * Fills in the straight runs between the jump points of the route
+	 * @param start - cell the search started at
+	 * @param goal - cell the search reached
+	 * @return - every cell number from start to goal
+	 */
+	private int[] expand(int start, int goal) {
+		int[] points = trace(start, goal);
+		int[] route = new int[cost[goal] + 1];
+		int height = map.getHeight();
+		int length = 0;
+		route[length++] = start;
+		for (int i = 1; i < points.length; i++) {
+			int from = points[i-1], to = points[i];
+			int step;
+			if (map.cellX(from) == map.cellX(to)) {
+				step = (to > from) ? 1 : -1;
+			} else {
+				step = (to > from) ? height : -height;
+			}
+			for (int cell = from + step; cell != to + step; cell += step) {
+				route[length++] = cell;
+			}
+		}
+		return route;
+	}
+}
@@ -0,0 +1,472 @@
+/**
+ * Compressed version of a maze's Grid for pathfinding: every open cell that isn't part of a plain corridor
+ * (junctions, dead ends, open areas) is a node, and each corridor between two nodes is a single edge weighted
+ * by its number of moves. Perfect mazes are mostly long corridors, so searches over this graph touch far fewer
+ * nodes than searches over cells, and cells are only walked again for the route that's actually returned.
+ * Nodes keep at most one edge per Compass direction. When a single cell of the Grid changes, update fixes only
+ * the nodes and corridors around it instead of building the whole graph again
+ * @author Robin A. and Zach D.
+ */
+import java.util.Arrays;
+
+public class JunctionGraph implements PathSolver {
+
+	private final Grid map;
+	private final int[] steps = new int[4];
+	private final int[] nodeOf;
+	private int[] nodeCell = new int[1024];
+	private int[] edgeTo = new int[4096];
+	private int[] edgeLength = new int[4096];
+	private int nodeCount;
+	private int[] free = new int[16];
+	private int freeCount;
+	private int nodes;
+	private int traceEnd, traceLength, traceArrive;
+	private int[] dist, prevNode, prevDir, mark;
+	private int stamp;
+	private final LongHeap open = new LongHeap();
+	private int expanded;
+	private final int[] goalNode = new int[4], goalCost = new int[4], goalDir = new int[4];
+	private int goalLinks, bestEnd, bestLink, directDir;
+	private int[] changed = new int[5], dirty = new int[64];
+	private int dirtyCount;
+
+	/**
+	 * Constructor that builds the graph for a Grid
+	 * @param map - Grid to build the graph from
+	 */
+	public JunctionGraph(Grid map) {
+		this.map = map;
+		Compass[] direction = Compass.values();
+		for (int i = 0; i < direction.length; i++) {
+			steps[i] = direction[i].mapX * map.getHeight() + direction[i].mapY;
+		}
+		this.nodeOf = new int[map.size()];
+		Arrays.fill(nodeOf, -1);
+		for (int cell = 0; cell < map.size(); cell++) {
+			if (isNode(cell)) {
+				addNode(cell);
+			}
+		}
+		for (int id = 0; id < nodeCount; id++) {
+			link(id);
+		}
+	}
+
+	/**
+	 * @return - number of nodes in the graph
+	 */
+	public int getNodeCount() {
+		return nodes;
+	}
+
+	/* Searches the graph, then walks the corridors of the best route back into cells
+	 * (non-Javadoc)
+	 * @see PathSolver#solve(Grid, int, int)
+	 */
+	@Override
+	public Route solve(Grid map, int start, int goal) {
+		if (map != this.map) {
+			throw new IllegalArgumentException("JunctionGraph can only solve the Grid it was built from");
+		}
+		if (start == goal) {
+			return new Route(map, new int[] {start}, 0);
+		}
+		int length = search(start, goal);
+		if (length < 0) {
+			return new Route(map, new int[0], expanded);
+		}
+		return new Route(map, expand(start, goal, length), expanded);
+	}
+
+	/**
+	 * Finds how many moves the shortest route takes without walking it out into cells
+	 * @param start - cell to start at
+	 * @param goal - cell to reach
+	 * @return - number of moves, or -1 if the goal can't be reached
+	 */
+	public int distance(int start, int goal) {
+		return (start == goal) ? 0 : search(start, goal);
+	}
+
+	/**
+	 * Fixes the graph after one cell of the Grid has been turned into a wall or opened up. Only the changed cell,
+	 * its neighbours and the nodes at the far ends of the corridors touching them are looked at
+	 * @param cell - cell number of the cell that changed
+	 */
+	public void update(int cell) {
+		changed[0] = cell;
+		for (int i = 0; i < steps.length; i++) {
+			changed[i+1] = cell + steps[i];
+		}
+		dirtyCount = 0;
+		for (int near: changed) {
+			if (nodeOf[near] >= 0) {
+				markDirty(nodeOf[near]);
+			} else if (near != cell && !map.isWall(near)) {
+				for (int d = 0; d < steps.length; d++) {
+					if (near + steps[d] != cell && !map.isWall(near + steps[d])) {
+						int end = walkToNode(near, d);
+						if (end >= 0) {
+							markDirty(end);
+						}
+					}
+				}
+			}
+		}
+		int count = dirtyCount;
+		for (int i = 0; i < count; i++) {
+			int id = dirty[i];
+			for (int d = 0; d < steps.length; d++) {
+				if (edgeTo[id*4 + d] >= 0) {
+					markDirty(edgeTo[id*4 + d]);
+				}
+			}
+		}
+		for (int i = 0; i < dirtyCount; i++) {
+			Arrays.fill(edgeTo, dirty[i]*4, dirty[i]*4 + 4, -1);
+		}
+		for (int near: changed) {
+			boolean node = isNode(near);
+			if (node && nodeOf[near] < 0) {
+				markDirty(addNode(near));
+			} else if (!node && nodeOf[near] >= 0) {
+				removeNode(nodeOf[near]);
+			}
+		}
+		for (int i = 0; i < dirtyCount; i++) {
+			if (nodeCell[dirty[i]] >= 0) {
+				link(dirty[i]);
+			}
+		}
+	}
+
+	/**
+	 * Dijkstra over the nodes. A start or goal in the middle of a corridor is joined to the nodes at both ends
+	 * of it first, and a start and goal in the same corridor are joined directly. Leaves everything expand needs
+	 * to walk the route back out
+	 * @param start - cell to start at
+	 * @param goal - cell to reach
+	 * @return - number of moves, or -1 if the goal can't be reached
+	 */
+	private int search(int start, int goal) {
+		prepare();
+		expanded = 0;
+		int best = Integer.MAX_VALUE;
+		bestEnd = -1;
+		bestLink = -1;
+		goalLinks = 0;
+		if (nodeOf[goal] < 0) {
+			for (int d = 0; d < steps.length; d++) {
+				if (!map.isWall(goal + steps[d]) && trace(goal, d, -1)) {
+					goalNode[goalLinks] = nodeOf[traceEnd];
+					goalCost[goalLinks] = traceLength;
+					goalDir[goalLinks++] = d;
+				}
+			}
+		}
+		if (nodeOf[start] >= 0) {
+			seed(nodeOf[start], 0, -1);
+		} else {
+			for (int d = 0; d < steps.length; d++) {
+				if (!map.isWall(start + steps[d]) && trace(start, d, goal)) {
+					if (traceEnd == goal && nodeOf[goal] < 0) {
+						if (traceLength < best) {
+							best = traceLength;
+							directDir = d;
+						}
+					} else {
+						seed(nodeOf[traceEnd], traceLength, d);
+					}
+				}
+			}
+		}
+		while (!open.isEmpty()) {
+			long entry = open.pop();
+			int node = LongHeap.node(entry);
+			int cost = LongHeap.priority(entry);
+			if (cost > dist[node]) {
+				continue;
+			}
+			if (cost >= best) {
+				break;
+			}
+			expanded++;
+			if (nodeCell[node] == goal) {
+				best = cost;
+				bestEnd = node;
+				bestLink = -1;
+				break;
+			}
+			for (int i = 0; i < goalLinks; i++) {
+				if (goalNode[i] == node && cost + goalCost[i] < best) {
+					best = cost + goalCost[i];
+					bestEnd = node;
+					bestLink = i;
+				}
+			}
+			for (int d = 0; d < steps.length; d++) {
+				int next = edgeTo[node*4 + d];
+				if (next >= 0) {
+					int nextCost = cost + edgeLength[node*4 + d];
+					if (mark[next] != stamp || nextCost < dist[next]) {
+						mark[next] = stamp;
+						dist[next] = nextCost;
+						prevNode[next] = node;
+						prevDir[next] = d;
+						open.push(LongHeap.entry(nextCost, next));
+					}
+				}
+			}
+		}
+		return (best == Integer.MAX_VALUE) ? -1 : best;
+	}
+
+	/**
+	 * Adds one of the nodes the search starts from
+	 * @param node - node to start from
+	 * @param cost - moves from the start cell to the node
+	 * @param dir - direction from the start cell toward the node, or -1 if the start is the node
+	 */
+	private void seed(int node, int cost, int dir) {
+		if (mark[node] != stamp || cost < dist[node]) {
+			mark[node] = stamp;
+			dist[node] = cost;
+			prevNode[node] = -1;
+			prevDir[node] = dir;
+			open.push(LongHeap.entry(cost, node));
+		}
+	}
+
+	/**
+	 * Walks the route found by the last search out into cells
+	 * @param start - cell the search started at
+	 * @param goal - cell the search reached
+	 * @param length - number of moves in the route
+	 * @return - cell numbers from start to goal
+	 */
+	private int[] expand(int start, int goal, int length) {
+		int[] route = new int[length + 1];
+		route[0] = start;
+		if (bestEnd < 0) {
+			walk(start, directDir, goal, route, 1, 1);
+			return route;
+		}
+		int count = 0;
+		for (int node = bestEnd; node >= 0; node = prevNode[node]) {
+			count++;
+		}
+		int[] chain = new int[count];
+		for (int node = bestEnd; node >= 0; node = prevNode[node]) {
+			chain[--count] = node;
+		}
+		int index = 1;
+		if (prevDir[chain[0]] >= 0) {
+			index = walk(start, prevDir[chain[0]], nodeCell[chain[0]], route, index, 1);
+		}
+		for (int i = 1; i < chain.length; i++) {
+			index = walk(nodeCell[chain[i-1]], prevDir[chain[i]], nodeCell[chain[i]], route, index, 1);
+		}
+		if (bestLink >= 0) {
+			route[length] = goal;
+			walk(goal, goalDir[bestLink], nodeCell[bestEnd], route, length - 1, -1);
+		}
+		return route;
+	}
+
+	/**
+	 * Walks a corridor, writing down each cell after the first up to and including the last
+	 * @param from - cell to walk from
+	 * @param dir - direction to leave from in
+	 * @param to - cell to stop at
+	 * @param route - array to write cells into
+	 * @param index - where to write the first cell
+	 * @param step - 1 to write forward through the array, -1 to write backward
+	 * @return - index after the last cell written
+	 */
+	private int walk(int from, int dir, int to, int[] route, int index, int step) {
+		int cell = from + steps[dir];
+		while (true) {
+			if (index >= 0 && index < route.length) {
+				route[index] = cell;
+			}
+			index += step;
+			if (cell == to) {
+				return index;
+			}
+			int back = dir ^ 1;
+			for (int d = 0; d < steps.length; d++) {
+				if (d != back && !map.isWall(cell + steps[d])) {
+					dir = d;
+					break;
+				}
+			}
+			cell += steps[dir];
+		}
+	}
+
+	/**
+	 * Follows a corridor from a cell until it reaches a node (or the target cell), leaving where it ended, how
+	 * many moves it took and which direction leads back in traceEnd, traceLength and traceArrive
+	 * @param from - cell to walk from
+	 * @param dir - direction to leave from in
+	 * @param target - cell to stop at even if it isn't a node, or -1
+	 * @return - false if the corridor loops back to where it started without reaching a node
+	 */
+	private boolean trace(int from, int dir, int target) {
+		int cell = from + steps[dir];
+		int length = 1;
+		while (nodeOf[cell] < 0 && cell != target) {
+			if (cell == from) {
+				return false;
+			}
+			int back = dir ^ 1;
+			for (int d = 0; d < steps.length; d++) {
+				if (d != back && !map.isWall(cell + steps[d])) {
+					dir = d;
+					break;
+				}
+			}
+			cell += steps[dir];
+			length++;
+		}
+		traceEnd = cell;
+		traceLength = length;
+		traceArrive = dir ^ 1;
+		return true;
+	}
+
+	/**
+	 * Follows a corridor during an update until it reaches a node from before the change, without going through
+	 * any of the cells that changed (or whose neighbours changed)
+	 * @param from - cell to walk from
+	 * @param dir - direction to leave from in
+	 * @return - node reached, or -1 if the walk ran into the changed cells or looped
+	 */
+	private int walkToNode(int from, int dir) {
+		int cell = from + steps[dir];
+		while (nodeOf[cell] < 0) {
+			if (cell == from) {
+				return -1;
+			}
+			for (int near: changed) {
+				if (near == cell) {
+					return -1;
+				}
+			}
+			int back = dir ^ 1;
+			for (int d = 0; d < steps.length; d++) {
+				if (d != back && !map.isWall(cell + steps[d])) {
+					dir = d;
+					break;
+				}
+			}
+			cell += steps[dir];
+		}
+		return nodeOf[cell];
+	}
+
+	/**
+	 * Sets every edge of a node by tracing each corridor leaving it, and sets the matching edge at the other end
+	 * @param id - node to link
+	 */
+	private void link(int id) {
+		int cell = nodeCell[id];
+		for (int d = 0; d < steps.length; d++) {
+			edgeTo[id*4 + d] = -1;
+			if (!map.isWall(cell + steps[d]) && trace(cell, d, -1)) {
+				int other = nodeOf[traceEnd];
+				edgeTo[id*4 + d] = other;
+				edgeLength[id*4 + d] = traceLength;
+				edgeTo[other*4 + traceArrive] = id;
+				edgeLength[other*4 + traceArrive] = traceLength;
+			}
+		}
+	}
+
+	/**
+	 * Checks if a cell should be a node: open, and not a corridor cell with exactly two open neighbours
+	 * @param cell - cell to check
+	 * @return - whether the cell is a node
+	 */
+	private boolean isNode(int cell) {
+		if (map.isWall(cell)) {
+			return false;
+		}
+		int open = 0;
+		for (int step: steps) {
+			if (!map.isWall(cell + step)) {
+				open++;
+			}
+		}
+		return open != 2;
+	}
+
+	/**
+	 * Makes a cell into a node, reusing a free node number if there is one
+	 * @param cell - cell to make a node
+	 * @return - node number
+	 */
+	private int addNode(int cell) {
+		int id = (freeCount > 0) ? free[--freeCount] : nodeCount++;
+		if (id == nodeCell.length) {
+			nodeCell = Arrays.copyOf(nodeCell, id * 2);
+			edgeTo = Arrays.copyOf(edgeTo, id * 8);
+			edgeLength = Arrays.copyOf(edgeLength, id * 8);
+		}
+		nodeOf[cell] = id;
+		nodeCell[id] = cell;
+		Arrays.fill(edgeTo, id*4, id*4 + 4, -1);
+		nodes++;
+		return id;
+	}
+
+	/**
+	 * Turns a node back into a plain cell and frees its node number
+	 * @param id - node to remove
+	 */
+	private void removeNode(int id) {
+		nodeOf[nodeCell[id]] = -1;
+		nodeCell[id] = -1;
+		Arrays.fill(edgeTo, id*4, id*4 + 4, -1);
+		if (freeCount == free.length) {
+			free = Arrays.copyOf(free, freeCount * 2);
+		}
+		free[freeCount++] = id;
+		nodes--;
+	}
+
+	/**
+	 * Adds a node to the list of nodes an update has to relink, once
+	 * @param id - node to add
+	 */
+	private void markDirty(int id) {
+		for (int i = 0; i < dirtyCount; i++) {
+			if (dirty[i] == id) {
+				return;
+			}
+		}
+		if (dirtyCount == dirty.length) {
+			dirty = Arrays.copyOf(dirty, dirtyCount * 2);
+		}
+		dirty[dirtyCount++] = id;
+	}
+
+	/**
+	 * Sizes the search arrays to the number of node numbers in use and starts a new search stamp
+	 */
+	private void prepare() {
+		if (dist == null || dist.length < nodeCell.length) {
+			dist = new int[nodeCell.length];
+			prevNode = new int[nodeCell.length];
+			prevDir = new int[nodeCell.length];
+			mark = new int[nodeCell.length];
+			stamp = 0;
+		}
+		if (++stamp == Integer.MAX_VALUE) {
+			Arrays.fill(mark, 0);
+			stamp = 1;
+		}
+		open.clear();
+	}
+}
@@ -0,0 +1,112 @@
+/**
+ * Fixed-size histogram of latencies in nanoseconds, laid out log-linear like HdrHistogram: values under 64
+ * get a bucket each, and every power of two above that is split into 32 buckets, so any recorded value is
+ * within about 3% of its bucket's value. It never allocates after it's made, so it's cheap enough to record
+ * every stage of every frame
+ * @author Robin A. and Zach D.
+ */
+import java.util.Arrays;
+
+public class LatencyHistogram {
+
+	private static final int SUB_BITS = 5;
+	private static final int SUB = 1 << SUB_BITS;
+	private static final int MAX_EXPONENT = 40;
+	private final long[] counts = new long[(MAX_EXPONENT - SUB_BITS + 1) * SUB + SUB];
+	private long count, total, max;
+
+	/**
+	 * Records one latency; anything over about 18 minutes lands in the last bucket
+	 * @param nanos - latency in nanoseconds
+	 */
+	public void record(long nanos) {
+		if (nanos < 0) {
+			nanos = 0;
+		}
+		counts[index(nanos)]++;
+		count++;
+		total += nanos;
+		if (nanos > max) {
+			max = nanos;
+		}
+	}
+
+	/**
+	 * Finds the latency below which the given fraction of recorded values fall
+	 * @param fraction - fraction from 0 to 1, such as .99 for the 99th percentile
+	 * @return - latency in nanoseconds, or 0 if nothing has been recorded
+	 */
+	public long percentile(double fraction) {
+		if (count == 0) {
+			return 0;
+		}
+		long rank = Math.max(1, (long)Math.ceil(fraction * count));
+		long seen = 0;
+		for (int i = 0; i < counts.length; i++) {
+			seen += counts[i];
+			if (seen >= rank) {
+				return Math.min(value(i), max);
+			}
+		}
+		return max;
+	}
+
+	/**
+	 * @return - number of latencies recorded
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	/**
+	 * @return - mean latency in nanoseconds, or 0 if nothing has been recorded
+	 */
+	public double getMean() {
+		return (count == 0) ? 0 : (double)total / count;
+	}
+
+	/**
+	 * @return - highest latency recorded, in nanoseconds
+	 */
+	public long getMax() {
+		return max;
+	}
+
+	/**
+	 * Empties the histogram
+	 */
+	public void reset() {
+		Arrays.fill(counts, 0);
+		count = 0;
+		total = 0;
+		max = 0;
+	}
+
+	/**
+	 * @param nanos - latency
+	 * @return - bucket the latency goes in
+	 */
+	private int index(long nanos) {
+		if (nanos < 2*SUB) {
+			return (int)nanos;
+		}
+		int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+		if (exponent > MAX_EXPONENT) {
+			return counts.length - 1;
+		}
+		return (exponent - SUB_BITS) * SUB + (int)(nanos >>> (exponent - SUB_BITS));
+	}
+
+	/**
+	 * @param index - bucket
+	 * @return - highest latency that goes in the bucket
+	 */
+	private long value(int index) {
+		if (index < 2*SUB) {
+			return index;
+		}
+		int exponent = index / SUB + SUB_BITS - 1;
+		long mantissa = index % SUB + SUB;
+		return ((mantissa + 1) << (exponent - SUB_BITS)) - 1;
+	}
+}
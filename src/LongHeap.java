@@ -0,0 +1,97 @@
+/**
+ * Binary min-heap of primitive longs, used as the open list of the A* style solvers. Entries are packed as
+ * (priority << 32) | node so no objects are made per entry; entries that go stale are simply skipped when 
+ * popped instead of being searched for and removed
+ * @author Robin A. and Zach D.
+ */
+import java.util.Arrays;
+
+public class LongHeap {
+
+	private long[] heap = new long[256];
+	private int size;
+
+	/**
+	 * Packs a priority and node into one heap entry
+	 * @param priority - priority, lowest comes out first
+	 * @param node - node number
+	 * @return - heap entry
+	 */
+	public static long entry(int priority, int node) {
+		return ((long)priority << 32) | (node & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * @param entry - heap entry
+	 * @return - node number of the entry
+	 */
+	public static int node(long entry) {
+		return (int)entry;
+	}
+
+	/**
+	 * @param entry - heap entry
+	 * @return - priority of the entry
+	 */
+	public static int priority(long entry) {
+		return (int)(entry >>> 32);
+	}
+
+	/**
+	 * Adds an entry
+	 * @param entry - entry to add
+	 */
+	public void push(long entry) {
+		if (size == heap.length) {
+			heap = Arrays.copyOf(heap, size * 2);
+		}
+		int i = size++;
+		while (i > 0) {
+			int parent = (i - 1) >>> 1;
+			if (heap[parent] <= entry) {
+				break;
+			}
+			heap[i] = heap[parent];
+			i = parent;
+		}
+		heap[i] = entry;
+	}
+
+	/**
+	 * Removes and returns the lowest entry
+	 * @return - lowest entry
+	 */
+	public long pop() {
+		long top = heap[0];
+		long last = heap[--size];
+		int i = 0;
+		int half = size >>> 1;
+		while (i < half) {
+			int child = 2*i + 1;
+			if (child + 1 < size && heap[child + 1] < heap[child]) {
+				child++;
+			}
+			if (last <= heap[child]) {
+				break;
+			}
+			heap[i] = heap[child];
+			i = child;
+		}
+		heap[i] = last;
+		return top;
+	}
+
+	/**
+	 * @return - whether the heap is empty
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Removes every entry
+	 */
+	public void clear() {
+		size = 0;
+	}
+}
@@ -0,0 +1,163 @@
+/**
+ * Pre-rasterized 2D map used by the Camera's map view. The maze is drawn once, at one pixel per cell, into
+ * square tiles that are only made the first time they scroll into view, and the solution route gets its own
+ * set of tiles so it's never solved or painted again while the maze stays the same. Each frame only the
+ * tiles inside the viewport are scaled up and blitted. If the Grid changes, every tile and the route are
+ * thrown out and made again as they're needed
+ * @author Robin A. and Zach D.
+ */
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+
+public class MapLayer {
+
+	private static final int TILE = 128;
+	private static final int OPEN = Color.WHITE.getRGB() & 0xFFFFFF;
+	private static final int WALL = Color.BLACK.getRGB() & 0xFFFFFF;
+	private static final int ROUTE = Color.GREEN.getRGB() & 0xFFFFFF;
+	private final Grid map;
+	private final int tilesX, tilesY;
+	private final BufferedImage[] tiles;
+	private final BufferedImage[] routeTiles;
+	private long[] route;
+	private int originX, originY;
+	private int version;
+
+	/**
+	 * Constructor
+	 * @param map - Grid to draw
+	 */
+	public MapLayer(Grid map) {
+		this.map = map;
+		this.tilesX = (map.getWidth() + TILE - 1) / TILE;
+		this.tilesY = (map.getHeight() + TILE - 1) / TILE;
+		this.tiles = new BufferedImage[tilesX * tilesY];
+		this.routeTiles = new BufferedImage[tilesX * tilesY];
+		this.version = map.getVersion();
+	}
+
+	/**
+	 * Sets the solution route to paint over the maze when asked to; only needs to be done once per maze
+	 * @param cells - cell numbers along the route
+	 */
+	public void setRoute(int[] cells) {
+		route = new long[(map.size() + 63) >>> 6];
+		for (int cell: cells) {
+			route[cell >>> 6] |= 1L << cell;
+		}
+	}
+
+	/**
+	 * @return - whether a route has been set since the Grid last changed
+	 */
+	public boolean hasRoute() {
+		checkVersion();
+		return route != null;
+	}
+
+	/**
+	 * Draws the part of the map that fits in the view. Maps smaller than the view sit in the top left corner;
+	 * bigger maps scroll to keep the given point in the middle of the view
+	 * @param g - Graphics object to draw on
+	 * @param cellSize - size of one cell on screen, in pixels
+	 * @param centerX - X position to center on, in cells
+	 * @param centerY - Y position to center on, in cells
+	 * @param viewW - width of view
+	 * @param viewH - height of view
+	 * @param showRoute - whether to paint the route over the maze
+	 */
+	public void draw(Graphics g, int cellSize, double centerX, double centerY, int viewW, int viewH, boolean showRoute) {
+		checkVersion();
+		originX = origin(centerX, cellSize, map.getWidth(), viewW);
+		originY = origin(centerY, cellSize, map.getHeight(), viewH);
+		int tileSize = TILE * cellSize;
+		int firstX = originX / tileSize, lastX = Math.min((originX + viewW - 1) / tileSize, tilesX - 1);
+		int firstY = originY / tileSize, lastY = Math.min((originY + viewH - 1) / tileSize, tilesY - 1);
+		for (int tx = firstX; tx <= lastX; tx++) {
+			for (int ty = firstY; ty <= lastY; ty++) {
+				BufferedImage tile = tile(tx, ty, showRoute && route != null);
+				int dx = tx * tileSize - originX;
+				int dy = ty * tileSize - originY;
+				g.drawImage(tile, dx, dy, dx + tile.getWidth() * cellSize, dy + tile.getHeight() * cellSize,
+						0, 0, tile.getWidth(), tile.getHeight(), null);
+			}
+		}
+	}
+
+	/**
+	 * @return - screen X of the map's left edge in the last drawn view (0 or less)
+	 */
+	public int getOriginX() {
+		return -originX;
+	}
+
+	/**
+	 * @return - screen Y of the map's top edge in the last drawn view (0 or less)
+	 */
+	public int getOriginY() {
+		return -originY;
+	}
+
+	/**
+	 * Throws out every tile and the route if the Grid has changed since they were made
+	 */
+	private void checkVersion() {
+		if (map.getVersion() != version) {
+			Arrays.fill(tiles, null);
+			Arrays.fill(routeTiles, null);
+			route = null;
+			version = map.getVersion();
+		}
+	}
+
+	/**
+	 * Finds where the view starts along one axis
+	 * @param center - position to center on, in cells
+	 * @param cellSize - size of one cell on screen
+	 * @param cells - number of cells along this axis
+	 * @param view - size of the view along this axis
+	 * @return - map pixel at the view's edge
+	 */
+	private int origin(double center, int cellSize, int cells, int view) {
+		int size = cells * cellSize;
+		if (size <= view) {
+			return 0;
+		}
+		int origin = (int)(center * cellSize) - view/2;
+		return Math.max(0, Math.min(origin, size - view));
+	}
+
+	/**
+	 * Gets a tile, rasterizing it the first time it's needed
+	 * @param tx - tile column
+	 * @param ty - tile row
+	 * @param withRoute - whether to get the tile with the route painted on
+	 * @return - tile image, one pixel per cell
+	 */
+	private BufferedImage tile(int tx, int ty, boolean withRoute) {
+		BufferedImage[] cache = withRoute ? routeTiles : tiles;
+		int index = tx * tilesY + ty;
+		if (cache[index] == null) {
+			int left = tx * TILE, top = ty * TILE;
+			int w = Math.min(TILE, map.getWidth() - left);
+			int h = Math.min(TILE, map.getHeight() - top);
+			BufferedImage tile = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+			int[] pixels = ((DataBufferInt)tile.getRaster().getDataBuffer()).getData();
+			for (int i = 0; i < w; i++) {
+				for (int j = 0; j < h; j++) {
+					int cell = map.cell(left + i, top + j);
+					int rgb = map.isWall(cell) ? WALL : OPEN;
+					if (withRoute && (route[cell >>> 6] & (1L << cell)) != 0) {
+						rgb = ROUTE;
+					}
+					pixels[j*w + i] = rgb;
+				}
+			}
+			cache[index] = tile;
+		}
+		return cache[index];
+	}
+}
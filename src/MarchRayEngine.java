@@ -0,0 +1,38 @@
+/**
+ * Original ray engine that marches along the ray in fixed .1 unit steps until it lands inside a wall. Kept
+ * around for comparison against the GridRayEngine
+ * @author Robin A. and Zach D.
+ */
+
+public class MarchRayEngine implements RayEngine {
+
+	private static final double STEP = .1;
+
+	/* Moves along the ray a small step at a time, checking the cell under each step
+	 * (non-Javadoc)
+	 * @see RayEngine#cast(Grid, double, double, double, double, RayHit)
+	 */
+	@Override
+	public void cast(Grid map, double x, double y, double sin, double cos, RayHit hit) {
+		hit.reset();
+		double length = 0;
+		int x2 = (int)x, y2 = (int)y;
+		int prevX, prevY;
+		do {
+			hit.steps++;
+			prevX = x2/32;
+			prevY = y2/32;
+			length += STEP;
+			x2 = (int) (x + length*sin);
+			y2 = (int) (y + length*cos);
+		} while (!map.isWall(x2/32, y2/32));
+		hit.distance = length;
+		hit.cellX = x2/32;
+		hit.cellY = y2/32;
+		if (hit.cellX != prevX) {
+			hit.face = (hit.cellX > prevX) ? Compass.W : Compass.E;
+		} else {
+			hit.face = (hit.cellY > prevY) ? Compass.N : Compass.S;
+		}
+	}
+}
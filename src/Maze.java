@@ -5,25 +5,22 @@
  */
 
 import java.awt.Point;
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.LinkedList;
-import java.util.Map;
+import java.util.Random;
 import java.util.Stack;
-import java.util.Queue;
 
 public class Maze {
 	
 	private int width;
 	private int height;
-	private int[][] maze;
+	private Grid maze;
 	private Point goal;
 	private Point playerStart;
-	private HashSet<Point> visited;
-	private Map<Point, Point> prev;
+	private int[] goalDistance;
+	private JunctionGraph junctions;
+	private HierarchicalSolver hierarchy;
+	private int[] steps;
+	private long seed;
 
 	/**
 	 * Constructor to create maze; doubling width/height adds walls, then adding 1 makes sure all walls are covered
@@ -31,42 +28,103 @@ public class Maze {
 	 * @param y - width of Maze 
 	 */
 	public Maze(int x, int y) {
-		this.visited = new HashSet<Point>();
+		this(x, y, new Random().nextLong());
+	}
+	
+	/**
+	 * Constructor to create the same maze every time for a given seed
+	 * @param x - height of Maze
+	 * @param y - width of Maze 
+	 * @param seed - seed for the random choices made while generating
+	 */
+	public Maze(int x, int y, long seed) {
+		MazeGenerationEvent event = new MazeGenerationEvent();
+		event.begin();
+		this.seed = seed;
 		this.width = x*2+1;
 		this.height = y*2+1;
-		this.maze = new int[width][height];
-		for (int i = 0; i < width; i++) {
-			for (int j = 0; j < height; j++) {
-				if (i % 2 == 1 && j % 2 == 1) {
-					maze[i][j] = 0;
-				} else {
-					maze[i][j] = 1;
-				}
+		this.maze = new Grid(width, height);
+		this.steps = new int[Compass.values().length];
+		for (Compass pointing: Compass.values()) {
+			steps[pointing.ordinal()] = pointing.mapX * height + pointing.mapY;
+		}
+		for (int i = 1; i < width; i += 2) {
+			for (int j = 1; j < height; j += 2) {
+				maze.setWall(i, j, false);
 			}
 		}
 		createMaze(1, 1);
 		setPoints();
+		if (event.shouldCommit()) {
+			event.width = width;
+			event.height = height;
+			event.seed = seed;
+			event.commit();
+		}
 	}
 	
 	/**
-	 * Recursive function that generates a random maze using a recursive backtracking algorithm
-	 * @param cWidth - current Width index
-	 * @param cHeight - current Height index
+	 * Generates a random maze with the backtracking algorithm, using an explicit stack instead of recursion so
+	 * the size of the maze isn't limited by the call stack. Rooms (odd/odd cells) are tracked in two bitsets: one
+	 * bit per room for whether it was visited, and two bits per room holding the Compass direction back to the 
+	 * room it was carved from, which is all the stack needs to backtrack
+	 * @param startW - Width index to start carving from
+	 * @param startH - Height index to start carving from
 	 */
-	private void createMaze(int cWidth, int cHeight) {
+	private void createMaze(int startW, int startH) {
+		int roomsH = height/2;
+		int rooms = (width/2) * roomsH;
+		long[] seen = new long[(rooms + 63) >>> 6];
+		long[] back = new long[(rooms + 31) >>> 5];
 		Compass[] direction = Compass.values();
-		Collections.shuffle(Arrays.asList(direction));
-		for (Compass pointing: direction) {
-			Point currentPoint = new Point(cWidth, cHeight);
-			visited.add(currentPoint);
-			int nextW = cWidth + pointing.genX;
-			int nextH = cHeight + pointing.genY;
-			Point nextPoint = new Point(nextW, nextH);
-			if (arrayBounds(nextW, width) && arrayBounds (nextH, height) && maze[nextW][nextH] == 0 && !visited.contains(nextPoint)) {
-				maze[cWidth + pointing.mapX][cHeight + pointing.mapY] = 0;
-				createMaze(nextW, nextH);
+		int[] options = new int[direction.length];
+		int cWidth = startW, cHeight = startH;
+		int room = (cWidth/2) * roomsH + cHeight/2;
+		seen[room >>> 6] |= 1L << room;
+		while (true) {
+			int count = 0;
+			for (int i = 0; i < direction.length; i++) {
+				int nextW = cWidth + direction[i].genX;
+				int nextH = cHeight + direction[i].genY;
+				if (arrayBounds(nextW, width) && arrayBounds (nextH, height) && !maze.isWall(nextW, nextH)) {
+					int next = (nextW/2) * roomsH + nextH/2;
+					if ((seen[next >>> 6] & (1L << next)) == 0) {
+						options[count++] = i;
+					}
+				}
 			}
-		} 
+			if (count > 0) {
+				int pick = options[nextInt(count)];
+				Compass pointing = direction[pick];
+				maze.setWall(cWidth + pointing.mapX, cHeight + pointing.mapY, false);
+				cWidth += pointing.genX;
+				cHeight += pointing.genY;
+				room = (cWidth/2) * roomsH + cHeight/2;
+				seen[room >>> 6] |= 1L << room;
+				back[room >>> 5] |= (long)(pick ^ 1) << ((room & 31) << 1);
+			} else if (cWidth == startW && cHeight == startH) {
+				return;
+			} else {
+				Compass pointing = direction[(int)(back[room >>> 5] >>> ((room & 31) << 1)) & 3];
+				cWidth += pointing.genX;
+				cHeight += pointing.genY;
+				room = (cWidth/2) * roomsH + cHeight/2;
+			}
+		}
+	}
+	
+	/**
+	 * Fast seedable random number generator (SplitMix64) used for every random choice the Maze makes
+	 * @param bound - upper bound (exclusive) of number to return
+	 * @return - random number from 0 up to bound
+	 */
+	private int nextInt(int bound) {
+		seed += 0x9E3779B97F4A7C15L;
+		long z = seed;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		z = z ^ (z >>> 31);
+		return (int)(((z >>> 32) * bound) >>> 32);
 	}
 
 	/**
@@ -81,69 +139,204 @@ public class Maze {
 
 	/**
 	 * Sets random points for both the player's start and the exit of the maze; bounds to make sure player and
-	 * goal aren't too close isnt precise, but at least it stops direct spawns side-by-side 
+	 * goal aren't too close isnt precise, but at least it stops direct spawns side-by-side. Spots are picked by
+	 * trying random cells until an empty one turns up, so no list of every empty spot is needed; if random
+	 * tries keep missing, the player start falls back to the empty spot furthest from the goal's range. The goal
+	 * distance field is thrown out, so it's built again toward the new goal the next time it's needed
 	 */
-	private void setPoints () {
-		ArrayList<Point> emptySpot = new ArrayList<Point>();
+	protected void setPoints () {
+		this.goal = randomEmptySpot();
+		goalDistance = null;
+		int goalRange = goal.x + goal.y;
+		for (int tries = 0; tries < 64; tries++) {
+			Point playerStart = randomEmptySpot();
+			if (Math.abs(playerStart.x + playerStart.y - goalRange) > width/2) {
+				this.playerStart = playerStart;
+				return;
+			}
+		}
+		int bestRange = -1;
 		for (int i = 0; i < width; i++) {
 			for (int j = 0; j < height; j++) {
-			if (maze[i][j] == 0) {
-				emptySpot.add(new Point (i, j));
+				if (!maze.isWall(i, j) && Math.abs(i + j - goalRange) > bestRange) {
+					bestRange = Math.abs(i + j - goalRange);
+					this.playerStart = new Point(i, j);
 				}
 			}
 		}
-		Collections.shuffle(emptySpot);
-		this.goal = emptySpot.get(0);
-		double goalRange = this.goal.getX() + this.goal.getY();
-		for (int i = 1; i < emptySpot.size(); i++) {
-			Point playerStart = emptySpot.get(i);
-			double playerRange = playerStart.getX() + playerStart.getY();
-			if (Math.abs(playerRange - goalRange) > width/2)
-			this.playerStart = playerStart;
+	}
+	
+	/**
+	 * @return - a random empty spot in the maze
+	 */
+	private Point randomEmptySpot() {
+		while (true) {
+			int i = nextInt(width);
+			int j = nextInt(height);
+			if (!maze.isWall(i, j)) {
+				return new Point(i, j);
+			}
 		}
 	}
 	
 	/**
-	 * Breath-first traversal that finds the goal relative to the player start, and keeps track of where each 
-	 * index was visited from via use of a HashMap. After finding the goal, each Point from the goal backward to
-	 * the playerStart is pushed into a Stack, which is then returned for use by the PathfindingBot
+	 * Finds the goal relative to the player start by searching the junction graph, then walking the corridors
+	 * of the route found back into cells. The route is pushed into a Stack from the goal backward to the
+	 * playerStart, which is then returned for use by the PathfindingBot
 	 * @return - returns a Stack with all the Points leading from start to goal, with starting point on top
 	 */
 	public Stack<Point> shortestPath() {
-		resetVisited();
-		Stack <Point> shortestPath = new Stack<Point>();
-		prev = new HashMap<Point,Point>();
-		Compass[] direction = Compass.values();
-		Queue <Point> path = new LinkedList<Point>();
-		path.add(playerStart);
-		while(!path.isEmpty()) {
-			Point current = path.poll();
-			for (Compass pointing: direction) {
-				if (current.equals(goal)) {
-					shortestPath.push(current);
-					while (prev.containsKey(shortestPath.peek()) && !shortestPath.peek().equals(playerStart)){
-						shortestPath.push(prev.get(shortestPath.peek()));
+		return solve(getJunctionGraph()).toStack();
+	}
+	
+	/**
+	 * Finds the route from the player start to the goal with the given solver
+	 * @param solver - PathSolver to use
+	 * @return - route found
+	 */
+	public Route solve(PathSolver solver) {
+		return solve(solver, playerStart, goal);
+	}
+	
+	/**
+	 * Finds the route between any two open spots with the given solver
+	 * @param solver - PathSolver to use
+	 * @param start - spot to start from
+	 * @param end - spot to reach
+	 * @return - route found
+	 */
+	public Route solve(PathSolver solver, Point start, Point end) {
+		PathSolveEvent event = new PathSolveEvent();
+		event.begin();
+		Route route = solver.solve(maze, maze.cell(start.x, start.y), maze.cell(end.x, end.y));
+		if (event.shouldCommit()) {
+			event.solver = solver.getClass().getSimpleName();
+			event.cells = maze.size();
+			event.start = maze.cell(start.x, start.y);
+			event.goal = maze.cell(end.x, end.y);
+			event.length = route.length();
+			event.expanded = route.getExpanded();
+			event.commit();
+		}
+		return route;
+	}
+	
+	/**
+	 * Distance field from the goal: one breath-first pass out from the goal gives every open cell its number of
+	 * moves to the goal. It's worked out the first time it's asked for and shared by every actor after that
+	 * @return - moves to the goal for each cell number, or -1 for walls and cells that can't reach the goal
+	 */
+	public synchronized int[] getGoalDistances() {
+		if (goalDistance == null) {
+			PathSolveEvent event = new PathSolveEvent();
+			event.begin();
+			int[] distance = new int[maze.size()];
+			Arrays.fill(distance, -1);
+			int[] queue = new int[maze.size()];
+			int head = 0, tail = 0;
+			int end = maze.cell(goal.x, goal.y);
+			distance[end] = 0;
+			queue[tail++] = end;
+			while (head != tail) {
+				int current = queue[head++];
+				for (int step: steps) {
+					int next = current + step;
+					if (distance[next] < 0 && !maze.isWall(next)) {
+						distance[next] = distance[current] + 1;
+						queue[tail++] = next;
 					}
-					return shortestPath;
-				}
-				int nextW = (int)current.getX() + pointing.mapX;
-				int nextH = (int)current.getY() + pointing.mapY;
-				Point nextPoint = new Point(nextW, nextH);
-				if (arrayBounds(nextW, width) && arrayBounds (nextH, height) && maze[nextW][nextH] == 0 && !visited.contains(nextPoint)) {
-					path.add(nextPoint);
-					visited.add(nextPoint);
-					prev.put(nextPoint, current);
 				}
 			}
+			goalDistance = distance;
+			if (event.shouldCommit()) {
+				event.solver = "goal distance field";
+				event.cells = maze.size();
+				event.start = end;
+				event.goal = end;
+				event.expanded = tail;
+				event.commit();
+			}
+		}
+		return goalDistance;
+	}
+	
+	/**
+	 * Picks the next cell toward the goal by checking which neighbour is one move closer in the distance field
+	 * @param cell - cell number to move from
+	 * @return - cell number of the next cell, or -1 if already at the goal or the goal can't be reached
+	 */
+	public int nextCell(int cell) {
+		int[] distance = getGoalDistances();
+		if (distance[cell] <= 0) {
+			return -1;
+		}
+		for (int step: steps) {
+			if (distance[cell + step] == distance[cell] - 1) {
+				return cell + step;
+			}
+		}
+		return -1;
+	}
+	
+	/**
+	 * Picks the next spot toward the goal from anywhere in the maze
+	 * @param from - spot to move from
+	 * @return - next spot to move to, or null if already at the goal or the goal can't be reached
+	 */
+	public Point nextStep(Point from) {
+		int next = nextCell(maze.cell(from.x, from.y));
+		if (next < 0) {
+			return null;
 		}
-		return shortestPath;		
+		return new Point(maze.cellX(next), maze.cellY(next));
 	}
 	
 	/**
-	 * Resets HashSet for use in ShortestPath method
+	 * Turns a cell inside the maze into a wall or opens it up. The goal distance field is thrown out, the
+	 * junction graph, if it's been built, is fixed around the changed cell, and the hierarchical solver's
+	 * clusters around the cell are marked for rebuilding
+	 * @param x - X index of cell
+	 * @param y - Y index of cell
+	 * @param wall - true for wall, false for open
 	 */
-	public void resetVisited() {
-		this.visited = new HashSet<Point>();
+	public synchronized void setWall(int x, int y, boolean wall) {
+		if (x <= 0 || y <= 0 || x >= width-1 || y >= height-1) {
+			throw new IllegalArgumentException("The outer edge of the maze has to stay wall");
+		}
+		if (maze.isWall(x, y) == wall) {
+			return;
+		}
+		maze.setWall(x, y, wall);
+		goalDistance = null;
+		if (junctions != null) {
+			junctions.update(maze.cell(x, y));
+		}
+		if (hierarchy != null) {
+			hierarchy.invalidate(x, y);
+		}
+	}
+	
+	/**
+	 * Corridor-collapsed graph of the maze, built the first time it's asked for and kept up to date by setWall
+	 * @return - JunctionGraph for this maze, which can be used as a PathSolver on its map
+	 */
+	public synchronized JunctionGraph getJunctionGraph() {
+		if (junctions == null) {
+			junctions = new JunctionGraph(maze);
+		}
+		return junctions;
+	}
+	
+	/**
+	 * Hierarchical solver for this maze, made the first time it's asked for. Its clusters are cached between
+	 * queries and only rebuilt after setWall changes them
+	 * @return - HierarchicalSolver for this maze, which can be used as a PathSolver on its map
+	 */
+	public synchronized HierarchicalSolver getHierarchicalSolver() {
+		if (hierarchy == null) {
+			hierarchy = new HierarchicalSolver(maze);
+		}
+		return hierarchy;
 	}
 	
 	/**
@@ -161,9 +354,9 @@ public class Maze {
 	} 
 	
 	/**
-	 * @return - returns int array which contains the map
+	 * @return - returns Grid which contains the map
 	 */
-	public int[][] getMap() {
+	public Grid getMap() {
 		return maze;
 	}
 }
\ No newline at end of file
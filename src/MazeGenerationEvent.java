@@ -0,0 +1,24 @@
+/**
+ * Flight Recorder event for generating a Maze, from carving the passages to picking the start and goal
+ * @author Robin A. and Zach D.
+ */
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("maze.MazeGeneration")
+@Label("Maze Generation")
+@Category("Maze Game")
+@Description("A new Maze being generated")
+public class MazeGenerationEvent extends jdk.jfr.Event {
+
+	@Label("Width")
+	int width;
+
+	@Label("Height")
+	int height;
+
+	@Label("Seed")
+	long seed;
+}
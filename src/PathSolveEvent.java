@@ -0,0 +1,33 @@
+/**
+ * Flight Recorder event for a path search on a Maze, by any PathSolver or the goal distance field
+ * @author Robin A. and Zach D.
+ */
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("maze.PathSolve")
+@Label("Path Solve")
+@Category("Maze Game")
+@Description("A route or distance field being worked out on a Maze")
+public class PathSolveEvent extends jdk.jfr.Event {
+
+	@Label("Solver")
+	String solver;
+
+	@Label("Maze Cells")
+	int cells;
+
+	@Label("Start")
+	int start;
+
+	@Label("Goal")
+	int goal;
+
+	@Label("Route Length")
+	int length;
+
+	@Label("Nodes Expanded")
+	int expanded;
+}
@@ -0,0 +1,10 @@
+/**
+ * PathSolver interface for anything that can find a route between two cells of a Grid. Cells are given as
+ * Grid cell numbers, so any start and goal can be asked for, not just the maze's own
+ * @author Robin A. and Zach D.
+ */
+
+public interface PathSolver {
+
+	public Route solve(Grid map, int start, int goal);
+}
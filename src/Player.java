@@ -9,7 +9,7 @@ import java.awt.event.KeyEvent;
 public class Player extends Actor  {
 	
 	double startX, startY;
-	private int[][] map;
+	private Grid map;
 	public boolean completed;
 
 	/**
@@ -17,11 +17,11 @@ public class Player extends Actor  {
 	 * @param x - player's starting X value
 	 * @param y - player's starting Y value
 	 * @param direction - starting  direction player is facing
-	 * @param map - int array with coinciding map
+	 * @param map - Grid with coinciding map
 	 * @param engine - Game object for crossreferencing 
 	 * @param t - Component that keylistener is placed on; should always be a Camera object
 	 */
-	protected Player (int x, int y, int direction, int[][] map, Game engine, Component t) {
+	protected Player (int x, int y, int direction, Grid map, Game engine, Component t) {
 		this.time = 0;
 		this.completed = false;
 		this.x = x;
@@ -45,7 +45,7 @@ public class Player extends Actor  {
 			double prevX, prevY;
 			prevX = x; prevY = y;
 			this.moveForward();			
-			if (map[(int)x/32][(int)y/32] == 1) {
+			if (map.isWall((int)x/32, (int)y/32)) {
 				x = prevX;
 				y = prevY;
 			} else {
@@ -56,7 +56,7 @@ public class Player extends Actor  {
 			double prevX, prevY;
 			prevX = x; prevY = y;
 			this.moveBackwards();			
-			if (map[(int)x/32][(int)y/32] == 1) {
+			if (map.isWall((int)x/32, (int)y/32)) {
 				x = prevX;
 				y = prevY;
 			} else {
@@ -0,0 +1,44 @@
+/**
+ * RayEngine interface for anything that can walk a ray through the map until it hits a wall. The ray starts
+ * at (x, y) in world units (32 per map cell) and travels along (sin, cos), same as the Camera's angles
+ * @author Robin A. and Zach D.
+ */
+
+public interface RayEngine {
+
+	public void cast(Grid map, double x, double y, double sin, double cos, RayHit hit);
+
+	/**
+	 * Gets ready to cast rays through a map, before any are cast; engines that build something from the map
+	 * build (or rebuild) it here, so cast can be called from several threads at once afterward
+	 * @param map - Grid that rays are about to be cast through
+	 */
+	public default void prepare(Grid map) {}
+
+	/**
+	 * Works out how far along a ray a wall face is, straight from the grid line the face lies on, rather than
+	 * from distances added up cell by cell; engines that know which face they hit use it for the hit's distance,
+	 * so the Camera can fill in columns between rays that hit the same face and get exactly what a cast would
+	 * @param cellX - X index of the wall cell hit
+	 * @param cellY - Y index of the wall cell hit
+	 * @param face - side of the cell hit
+	 * @param x - X-position the ray started from
+	 * @param y - Y-position the ray started from
+	 * @param sin - X part of the ray's direction
+	 * @param cos - Y part of the ray's direction
+	 * @return - distance along the ray to the face, in world units
+	 */
+	public static double faceDistance(int cellX, int cellY, Compass face, double x, double y, double sin,
+			double cos) {
+		switch (face) {
+		case N:
+			return (cellY*32 - y) / cos;
+		case S:
+			return ((cellY+1)*32 - y) / cos;
+		case W:
+			return (cellX*32 - x) / sin;
+		default:
+			return ((cellX+1)*32 - x) / sin;
+		}
+	}
+}
@@ -0,0 +1,20 @@
+/**
+ * Holds the result of a single cast ray; one RayHit is reused for every column so the ray loop
+ * doesn't need to allocate anything
+ * @author Robin A. and Zach D.
+ */
+
+public class RayHit {
+
+	double distance;
+	int cellX, cellY;
+	Compass face;
+	int steps;
+
+	/**
+	 * Clears the step count so the hit can be used for a new ray
+	 */
+	protected void reset() {
+		steps = 0;
+	}
+}
@@ -0,0 +1,67 @@
+/**
+ * Picks the Camera's render resolution from how long frames take, so the frame rate holds steady on slower
+ * machines (or in huge mazes) by drawing fewer, wider columns and rows instead of dropping frames. Frame times
+ * are smoothed with an exponential moving average; the scale steps down as soon as the average is over the
+ * budget, but only steps back up once the average, grown by the extra pixels the next step would draw, still
+ * fits comfortably inside it. At the start and after every change it waits a while before changing again, so it
+ * doesn't flicker between two steps
+ * @author Robin A. and Zach D.
+ */
+
+public class ResolutionController {
+
+	private static final double[] SCALES = {1, .875, .75, .625, .5, .375, .25};
+	private static final double SMOOTHING = .1;
+	private static final double HEADROOM = .85;
+	private static final int HOLD_FRAMES = 30;
+	private final long budget;
+	private double average;
+	private int level;
+	private int hold;
+
+	/**
+	 * Constructor
+	 * @param budget - frame time to stay under, in nanoseconds
+	 */
+	public ResolutionController(long budget) {
+		this.budget = budget;
+		this.average = -1;
+		this.hold = HOLD_FRAMES;
+	}
+
+	/**
+	 * Adds the time one frame took and decides whether the scale should change
+	 * @param nanos - time the frame took, in nanoseconds
+	 * @return - whether the scale changed
+	 */
+	public boolean frameTime(long nanos) {
+		average = (average < 0) ? nanos : average + SMOOTHING * (nanos - average);
+		if (hold > 0) {
+			hold--;
+			return false;
+		}
+		int next = level;
+		if (average > budget && level < SCALES.length - 1) {
+			next = level + 1;
+		} else if (level > 0) {
+			double grow = (SCALES[level-1] * SCALES[level-1]) / (SCALES[level] * SCALES[level]);
+			if (average * grow < budget * HEADROOM) {
+				next = level - 1;
+			}
+		}
+		if (next == level) {
+			return false;
+		}
+		level = next;
+		hold = HOLD_FRAMES;
+		average = -1;
+		return true;
+	}
+
+	/**
+	 * @return - fraction of the window's width and height to render at
+	 */
+	public double getScale() {
+		return SCALES[level];
+	}
+}
@@ -0,0 +1,66 @@
+/**
+ * Result of a PathSolver: the cells from start to goal, and how many nodes the solver had to expand to find 
+ * them, which makes it easy to compare solvers on the same query
+ * @author Robin A. and Zach D.
+ */
+import java.awt.Point;
+import java.util.Stack;
+
+public class Route {
+
+	private final Grid map;
+	private final int[] cells;
+	private final int expanded;
+
+	/**
+	 * Constructor
+	 * @param map - Grid the route was found on
+	 * @param cells - cell numbers from start to goal, or an empty array if there is no route
+	 * @param expanded - number of nodes the solver expanded
+	 */
+	public Route(Grid map, int[] cells, int expanded) {
+		this.map = map;
+		this.cells = cells;
+		this.expanded = expanded;
+	}
+
+	/**
+	 * @return - whether the goal could be reached
+	 */
+	public boolean isFound() {
+		return cells.length > 0;
+	}
+
+	/**
+	 * @return - number of moves from start to goal
+	 */
+	public int length() {
+		return cells.length - 1;
+	}
+
+	/**
+	 * @return - cell numbers from start to goal
+	 */
+	public int[] getCells() {
+		return cells;
+	}
+
+	/**
+	 * @return - number of nodes the solver expanded to find this route
+	 */
+	public int getExpanded() {
+		return expanded;
+	}
+
+	/**
+	 * @return - returns a Stack with all the Points leading from start to goal, with starting point on top, the
+	 * way Bot uses it
+	 */
+	public Stack<Point> toStack() {
+		Stack<Point> stack = new Stack<Point>();
+		for (int i = cells.length - 1; i >= 0; i--) {
+			stack.push(new Point(map.cellX(cells[i]), map.cellY(cells[i])));
+		}
+		return stack;
+	}
+}